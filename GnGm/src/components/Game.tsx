@@ -4,6 +4,7 @@ import SockJS from 'sockjs-client';
 import { useLocation, useNavigate } from 'react-router-dom';
 import axios from 'axios';
 import { api } from '../services/api';
+import { decodeSnapshot } from '../utils/snapshotCodec';
 
 // Simple types
 interface Player {
@@ -32,6 +33,42 @@ interface GameState {
   winnerName: string | null;
 }
 
+// Server message: a full keyframe, or a delta with only changed fields and removed ids
+interface SnapshotMessage {
+  type?: 'keyframe' | 'delta' | 'radar';
+  tick?: number;
+  players?: { [key: number]: Partial<Player> };
+  projectiles?: { [key: string]: Partial<Projectile> };
+  removedPlayers?: number[];
+  removedProjectiles?: number[];
+  gameOver: boolean;
+  winnerName: string | null;
+}
+
+// Applies a snapshot message to the last known state; returns null while waiting for the first keyframe
+const applySnapshot = (base: GameState | null, message: SnapshotMessage): GameState | null => {
+  if (message.type !== 'delta') {
+    return {
+      players: (message.players || {}) as GameState['players'],
+      projectiles: (message.projectiles || {}) as GameState['projectiles'],
+      gameOver: message.gameOver,
+      winnerName: message.winnerName
+    };
+  }
+  if (!base) return null;
+  const players = { ...base.players };
+  Object.entries(message.players || {}).forEach(([id, changes]) => {
+    players[Number(id)] = { ...players[Number(id)], ...changes } as Player;
+  });
+  (message.removedPlayers || []).forEach(id => delete players[id]);
+  const projectiles = { ...base.projectiles };
+  Object.entries(message.projectiles || {}).forEach(([id, changes]) => {
+    projectiles[id] = { ...projectiles[id], ...changes } as Projectile;
+  });
+  (message.removedProjectiles || []).forEach(id => delete projectiles[id]);
+  return { players, projectiles, gameOver: message.gameOver, winnerName: message.winnerName };
+};
+
 interface Wall {
   x: number;
   y: number;
@@ -64,6 +101,10 @@ const Game: React.FC = () => {
   // Add refs to cache winner/gameOver
   const lastWinnerName = useRef<string | null>(null);
   const lastGameOver = useRef(false);
+  // Baseline that deltas are applied to
+  const snapshotRef = useRef<GameState | null>(null);
+  // Players outside our view radius, refreshed by the low-rate radar summary
+  const [distantPlayers, setDistantPlayers] = useState<Partial<Player>[]>([]);
   
   // Update refs when state changes
   useEffect(() => {
@@ -85,38 +126,70 @@ const Game: React.FC = () => {
   const WORLD_H = 1200;
   const PLAYER_SIZE = 40;
     // WebSocket connection
-  useEffect(() => {    const client = new Client({
-      webSocketFactory: () => new SockJS('http://localhost:9090/ws'),
+  useEffect(() => {
+    // Binary snapshots need the plain WebSocket endpoint; JSON over SockJS stays the default
+    const binarySnapshots = localStorage.getItem('snapshotFormat') === 'binary';
+    // Raw WebSocket stream (no STOMP framing or broker) for snapshots; inputs stay on STOMP
+    const rawStream = localStorage.getItem('gameStream') === 'raw';
+    let gameStream: WebSocket | null = null;
+    const handleSnapshot = (snapshot: SnapshotMessage) => {
+      const state = applySnapshot(snapshotRef.current, snapshot);
+      if (!state) return;
+      snapshotRef.current = state;
+      setGameState(state);
+      
+      // Update current player
+      const playerId = parseInt(localStorage.getItem('playerId') || '1');
+      if (state.players[playerId]) {
+        setCurrentPlayer(state.players[playerId]);
+      } else {
+        console.log('❌ Current player not found in game state');
+      }
+      
+      if ('gameOver' in state) {
+        setGameOver(state.gameOver);
+        lastGameOver.current = state.gameOver;
+      }
+      if ('winnerName' in state) {
+        setWinnerName(state.winnerName);
+        lastWinnerName.current = state.winnerName;
+      }
+      if (state.gameOver) {
+        setTimeout(() => {
+          navigate('/menu');
+        }, 4000);
+      }
+    };
+    const handleRadar = (radar: SnapshotMessage) => {
+      setDistantPlayers(Object.values(radar.players || {}) as Partial<Player>[]);
+    };
+    const decode = (data: ArrayBuffer | string): SnapshotMessage =>
+      typeof data === 'string' ? JSON.parse(data) : decodeSnapshot(new Uint8Array(data)) as SnapshotMessage;
+
+    const client = new Client({
+      ...(binarySnapshots
+        ? { brokerURL: 'ws://localhost:9090/ws-native' }
+        : { webSocketFactory: () => new SockJS('http://localhost:9090/ws') }),
       onConnect: () => {
         console.log('✅ Connected to game server');
         setConnected(true);
           // Listen for game updates
-        client.subscribe(`/topic/game/state/${matchId}`, (message) => {
-          const state: GameState = JSON.parse(message.body);
-          setGameState(state);
-          
-          // Update current player
-          const playerId = parseInt(localStorage.getItem('playerId') || '1');
-          if (state.players[playerId]) {
-            setCurrentPlayer(state.players[playerId]);
-          } else {
-            console.log('❌ Current player not found in game state');
-          }
-          
-          if ('gameOver' in state) {
-            setGameOver(state.gameOver);
-            lastGameOver.current = state.gameOver;
-          }
-          if ('winnerName' in state) {
-            setWinnerName(state.winnerName);
-            lastWinnerName.current = state.winnerName;
-          }
-          if (state.gameOver) {
-            setTimeout(() => {
-              navigate('/menu');
-            }, 4000);
-          }
-        });
+        // Per-session streams: entities near our player, plus a periodic radar of everyone else.
+        // With the raw game stream they arrive on their own socket instead, opened after joining.
+        if (!rawStream) {
+          const stateQueue = binarySnapshots ? '/user/queue/game/state-bin' : '/user/queue/game/state';
+          const radarQueue = binarySnapshots ? '/user/queue/game/radar-bin' : '/user/queue/game/radar';
+          client.subscribe(radarQueue, (message) => {
+            handleRadar(binarySnapshots
+              ? decodeSnapshot(message.binaryBody) as SnapshotMessage
+              : JSON.parse(message.body));
+          });
+          client.subscribe(stateQueue, (message) => {
+            handleSnapshot(binarySnapshots
+              ? decodeSnapshot(message.binaryBody) as SnapshotMessage
+              : JSON.parse(message.body));
+          });
+        }
         
         // Join the game
         const playerId = Date.now() % 10000; // Simple ID
@@ -125,10 +198,26 @@ const Game: React.FC = () => {
         
         client.publish({
           destination: '/app/game/join',
-          body: JSON.stringify({ matchId, playerId, username })
+          body: JSON.stringify({ matchId, playerId, username, mapName: selectedMap })
         });
         
         console.log(`🎮 Joined as ${username} (ID: ${playerId})`);
+        
+        if (rawStream) {
+          const format = binarySnapshots ? 'binary' : 'json';
+          gameStream = new WebSocket(
+            `ws://localhost:9090/game-stream?matchId=${matchId}&playerId=${playerId}&format=${format}`);
+          gameStream.binaryType = 'arraybuffer';
+          gameStream.onmessage = (event) => {
+            const message = decode(event.data);
+            if (message.type === 'radar') {
+              handleRadar(message);
+            } else {
+              handleSnapshot(message);
+            }
+          };
+          gameStream.onclose = (event) => console.log('Game stream closed:', event.code, event.reason);
+        }
       },
       onDisconnect: () => {
         console.log('❌ Disconnected from server');
@@ -142,9 +231,10 @@ const Game: React.FC = () => {
     client.activate();
     clientRef.current = client;
       return () => {
+      gameStream?.close();
       client.deactivate();
     };
-  }, [matchId, navigate]);
+  }, [matchId, navigate, selectedMap]);
   
   // Cleanup on page refresh or component unmount
   useEffect(() => {
@@ -257,14 +347,14 @@ const Game: React.FC = () => {
   
   // Fetch wall data on mount
   useEffect(() => {
-    fetch('http://localhost:9090/api/map/walls')
+    fetch(`http://localhost:9090/api/map/${encodeURIComponent(selectedMap)}/walls`)
       .then(res => res.json())
       .then(data => {
         setWalls(data);
         console.log('Fetched walls:', data);
       })
       .catch(err => console.error('Failed to fetch walls:', err));
-  }, []);
+  }, [selectedMap]);
   
   // Helper to get current weapon for the local player
   const getCurrentWeapon = () => {
@@ -316,6 +406,14 @@ const Game: React.FC = () => {
       ctx.fillStyle = '#444';
       ctx.fillRect(x, y, w, h);
     });
+    // Draw distant players as dim markers; the radar only carries position and alive
+    distantPlayers.forEach(player => {
+      if (!player.alive || player.x === undefined || player.y === undefined) return;
+      ctx.fillStyle = 'rgba(255, 68, 68, 0.35)';
+      ctx.beginPath();
+      ctx.arc((player.x / WORLD_W) * canvas.width, (player.y / WORLD_H) * canvas.height, PLAYER_SIZE / 4, 0, Math.PI * 2);
+      ctx.fill();
+    });
     // Draw players
     Object.values(gameState.players).forEach(player => {
       const screenX = (player.x / WORLD_W) * canvas.width;
@@ -371,7 +469,7 @@ const Game: React.FC = () => {
       ctx.arc(screenX, screenY, 3, 0, Math.PI * 2);
       ctx.fill();
     });
-  }, [gameState, walls]);
+  }, [gameState, walls, distantPlayers]);
   
   // Respawn
   const respawn = () => {
@@ -0,0 +1,116 @@
+// Decoder for the binary snapshot format (server: BinarySnapshotWriter).
+// Produces the same message shape as the JSON topic, so both feed applySnapshot.
+
+const POSITION_SCALE = 32;
+const ANGLE_SCALE = (2 * Math.PI) / 65536;
+
+const FIELD_USERNAME = 1;
+const FIELD_X = 2;
+const FIELD_Y = 4;
+const FIELD_ROTATION = 8;
+const FIELD_HEALTH = 16;
+const FIELD_ALIVE = 32;
+const FIELD_WEAPON = 64;
+
+type Entry = { [key: string]: number | string | boolean };
+
+export interface DecodedSnapshot {
+  type: 'keyframe' | 'delta' | 'radar';
+  tick: number;
+  gameOver: boolean;
+  winnerName: string | null;
+  players: { [key: number]: Entry };
+  projectiles: { [key: string]: Entry };
+  removedPlayers?: number[];
+  removedProjectiles?: number[];
+}
+
+const textDecoder = new TextDecoder();
+
+export function decodeSnapshot(bytes: Uint8Array): DecodedSnapshot {
+  const view = new DataView(bytes.buffer, bytes.byteOffset, bytes.byteLength);
+  let offset = 0;
+
+  const u8 = () => view.getUint8(offset++);
+  const u16 = () => { const v = view.getUint16(offset); offset += 2; return v; };
+  const i16 = () => { const v = view.getInt16(offset); offset += 2; return v; };
+  const i32 = () => { const v = view.getInt32(offset); offset += 4; return v; };
+  const str = () => {
+    const length = u8();
+    const value = textDecoder.decode(bytes.subarray(offset, offset + length));
+    offset += length;
+    return value;
+  };
+  const position = () => u16() / POSITION_SCALE;
+  const angle = () => i16() * ANGLE_SCALE;
+
+  const version = u8();
+  if (version !== 1) {
+    throw new Error(`Unsupported snapshot version ${version}`);
+  }
+  const flags = u8();
+  const radar = (flags & 4) !== 0;
+  // Radar summaries are complete, like keyframes
+  const keyframe = (flags & 1) !== 0 || radar;
+  const tick = view.getUint32(offset);
+  offset += 4;
+  const winner = str();
+
+  const readPlayers = () => {
+    const players: { [key: number]: Entry } = {};
+    for (let n = u16(); n > 0; n--) {
+      const id = i32();
+      const mask = u8();
+      const player: Entry = { id };
+      if (mask & FIELD_USERNAME) player.username = str();
+      if (mask & FIELD_X) player.x = position();
+      if (mask & FIELD_Y) player.y = position();
+      if (mask & FIELD_ROTATION) player.rotation = angle();
+      if (mask & FIELD_HEALTH) player.health = u8();
+      if (mask & FIELD_ALIVE) player.alive = u8() !== 0;
+      if (mask & FIELD_WEAPON) player.currentWeaponIndex = u8();
+      players[id] = player;
+    }
+    return players;
+  };
+  const readProjectiles = () => {
+    const projectiles: { [key: string]: Entry } = {};
+    for (let n = u16(); n > 0; n--) {
+      const id = i32();
+      const projectile: Entry = {};
+      if (u8() !== 0) {
+        projectile.id = id;
+        projectile.playerId = i32();
+        projectile.direction = angle();
+      }
+      projectile.x = position();
+      projectile.y = position();
+      projectiles[id] = projectile;
+    }
+    return projectiles;
+  };
+  const readIds = () => {
+    const ids: number[] = [];
+    for (let n = u16(); n > 0; n--) {
+      ids.push(i32());
+    }
+    return ids;
+  };
+
+  const message: DecodedSnapshot = {
+    type: radar ? 'radar' : keyframe ? 'keyframe' : 'delta',
+    tick,
+    gameOver: (flags & 2) !== 0,
+    winnerName: winner.length > 0 ? winner : null,
+    players: readPlayers(),
+    projectiles: {}
+  };
+  if (!keyframe) {
+    message.removedPlayers = readIds();
+  }
+  message.projectiles = readProjectiles();
+  if (!keyframe) {
+    message.removedProjectiles = readIds();
+  }
+  return message;
+}
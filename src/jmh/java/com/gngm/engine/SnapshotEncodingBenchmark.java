@@ -0,0 +1,106 @@
+package com.gngm.engine;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Snapshot encoding cost and payload size, JSON vs. binary, for keyframes and for
+// deltas where every player moved. Throughput mode, so the "bytes" secondary result
+// divided by the primary score is the message size.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnapshotEncodingBenchmark {
+
+    @Param({"8", "32", "128"})
+    public int players;
+
+    private final MatchSnapshot[] snapshots = {new MatchSnapshot(), new MatchSnapshot()};
+    private final DeltaTracker tracker = new DeltaTracker(Integer.MAX_VALUE);
+    private JsonSnapshotWriter json;
+    private BinarySnapshotWriter binary;
+    private int next;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Payload {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        json = new JsonSnapshotWriter(new JsonFactory());
+        binary = new BinarySnapshotWriter(1024);
+        // Two states of the same match a step apart; alternating them makes every write a full delta
+        Random random = new Random(42);
+        snapshots[0].reset(100, false, null);
+        snapshots[1].reset(101, false, null);
+        for (int id = 0; id < players; id++) {
+            double x = random.nextDouble() * 1600;
+            double y = random.nextDouble() * 1200;
+            double rotation = random.nextDouble() * 2 * Math.PI;
+            snapshots[0].addPlayer(id, "Player" + id, x, y, rotation, 100, true, 0);
+            snapshots[1].addPlayer(id, "Player" + id, x + 3, y - 2, rotation + 0.1, 100, true, 0);
+        }
+        for (int id = 0; id < players * 2; id++) {
+            double x = random.nextDouble() * 1600;
+            double y = random.nextDouble() * 1200;
+            double direction = random.nextDouble() * 2 * Math.PI;
+            snapshots[0].addProjectile(id, x, y, direction, id % players);
+            snapshots[1].addProjectile(id, x + 5 * Math.cos(direction), y + 5 * Math.sin(direction), direction, id % players);
+        }
+        tracker.write(snapshots[1], binary);
+    }
+
+    @Benchmark
+    public int jsonKeyframe(Payload payload) {
+        tracker.requestKeyframe();
+        return write(json, payload);
+    }
+
+    @Benchmark
+    public int binaryKeyframe(Payload payload) {
+        tracker.requestKeyframe();
+        return write(binary, payload);
+    }
+
+    @Benchmark
+    public int jsonDelta(Payload payload) {
+        return write(json, payload);
+    }
+
+    @Benchmark
+    public int binaryDelta(Payload payload) {
+        return write(binary, payload);
+    }
+
+    private int write(SnapshotWriter writer, Payload payload) {
+        tracker.write(snapshots[next], writer);
+        next ^= 1;
+        int size = writer == json ? json.size() : binary.size();
+        payload.bytes += size;
+        return size;
+    }
+}
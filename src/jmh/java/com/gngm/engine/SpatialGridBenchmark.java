@@ -0,0 +1,89 @@
+package com.gngm.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Projectile-vs-player hit candidates for one step: rebuilding the player grid and
+// querying it per projectile, against the all-pairs distance check it replaced.
+// Two projectiles per player, as in a busy match.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpatialGridBenchmark {
+
+    private static final double WIDTH = 1600;
+    private static final double HEIGHT = 1200;
+    private static final double CELL_SIZE = 64;
+    private static final double HIT_RADIUS = 25;
+
+    @Param({"8", "32", "128"})
+    public int players;
+
+    private SpatialGrid grid;
+    private double[] playerX;
+    private double[] playerY;
+    private double[] projectileX;
+    private double[] projectileY;
+
+    @Setup
+    public void setup() {
+        grid = new SpatialGrid(WIDTH, HEIGHT, CELL_SIZE);
+        Random random = new Random(42);
+        playerX = new double[players];
+        playerY = new double[players];
+        for (int i = 0; i < players; i++) {
+            playerX[i] = random.nextDouble() * WIDTH;
+            playerY[i] = random.nextDouble() * HEIGHT;
+        }
+        projectileX = new double[players * 2];
+        projectileY = new double[players * 2];
+        for (int i = 0; i < projectileX.length; i++) {
+            projectileX[i] = random.nextDouble() * WIDTH;
+            projectileY[i] = random.nextDouble() * HEIGHT;
+        }
+    }
+
+    @Benchmark
+    public int grid() {
+        grid.clear();
+        for (int i = 0; i < players; i++) {
+            grid.insert(i, playerX[i], playerY[i]);
+        }
+        int candidates = 0;
+        for (int p = 0; p < projectileX.length; p++) {
+            candidates += grid.query(projectileX[p], projectileY[p], HIT_RADIUS);
+        }
+        return candidates;
+    }
+
+    @Benchmark
+    public int allPairs() {
+        double limit = HIT_RADIUS * HIT_RADIUS;
+        int hits = 0;
+        for (int p = 0; p < projectileX.length; p++) {
+            for (int i = 0; i < players; i++) {
+                double dx = projectileX[p] - playerX[i];
+                double dy = projectileY[p] - playerY[i];
+                if (dx * dx + dy * dy < limit) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,112 @@
+package com.gngm.service;
+
+import com.gngm.engine.InputJournal;
+import com.gngm.engine.SimulationClock;
+import com.gngm.engine.TimeSource;
+import com.gngm.engine.WallGeometry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Replays a whole journaled match per op. Pass a recorded production journal with
+// -Djmh.args="MatchReplay -p journal=journals/match-1-....journal"; without one, setup
+// records a synthetic match (players wandering and shooting at random on the default
+// map) first.
+// Setup fails if the replay doesn't end in the recorded state.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchReplayBenchmark {
+
+    @Param({""})
+    public String journal;
+
+    // Synthetic recording only
+    @Param({"16"})
+    public int players;
+
+    @Param({"3600"})
+    public int ticks;
+
+    private GameEngineService engine;
+    private WallGeometry walls;
+    private Path file;
+    private boolean temporary;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        engine = new GameEngineService(null, null, TimeSource.SYSTEM, null, new InMemoryMatchDirectory());
+        engine.buildPipeline();
+        walls = MapRegistryService.compile(MapRegistryService.DEFAULT_WALLS);
+        if (journal.isEmpty()) {
+            file = Files.createTempFile("gngm-replay", ".journal");
+            // Only the unique name is wanted; journals are never written over an existing file
+            Files.delete(file);
+            temporary = true;
+            record();
+        } else {
+            file = Paths.get(journal);
+        }
+        GameEngineService.ReplayResult result = replay();
+        // A recording cut short (no end record) can't be checked; the synthetic one always can
+        if (Boolean.FALSE.equals(result.matchesRecording()) || temporary && result.matchesRecording() == null) {
+            throw new IllegalStateException("Replay of " + file + " diverged from the recording");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (temporary) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public GameEngineService.ReplayResult replay() throws IOException {
+        InputJournal.Reader reader = InputJournal.open(file);
+        return engine.replay(reader, MatchJournal.readHeader(reader), walls);
+    }
+
+    private void record() throws IOException {
+        GameEngineService.MatchState match = new GameEngineService.MatchState(1, MapRegistryService.DEFAULT_MAP_NAME,
+            new SimulationClock(60, 5), walls, 42);
+        match.journal = MatchJournal.create(file, new MatchJournal.Header(match.id, match.seed, 60, match.mapName,
+            System.currentTimeMillis()), 1 << 20);
+        Random random = new Random(7);
+        for (int id = 0; id < players; id++) {
+            match.inputs.add(new GameEngineService.JoinCommand(id, "Player" + id, false));
+        }
+        for (int tick = 0; tick < ticks; tick++) {
+            int id = random.nextInt(players);
+            if (tick % 10 == 0) {
+                match.inputs.add(new GameEngineService.MoveCommand(id, random.nextInt(3) * 2 - 2,
+                    random.nextInt(3) * 2 - 2, random.nextDouble() * 2 * Math.PI - Math.PI));
+            }
+            if (tick % 15 == 0) {
+                match.inputs.add(new GameEngineService.ShootCommand(id, random.nextDouble() * 2 * Math.PI - Math.PI));
+            }
+            engine.step(match);
+        }
+        match.journal.finish(match.clock.getTick(), GameEngineService.stateHash(match));
+    }
+}
@@ -0,0 +1,102 @@
+package com.gngm.service;
+
+import com.gngm.engine.ProjectilePool;
+import com.gngm.engine.SimulationClock;
+import com.gngm.engine.TimeSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// One simulation step of a match on the default map, and its collision and projectile
+// stages on their own, at varying player and projectile counts. The match is driven
+// directly through the step pipeline; no tick workers or broadcaster are involved.
+//
+// Every op first tops the match back up to its parameters (respawning projectiles that
+// expired or hit, reviving the dead), so the numbers include a few pool writes.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchTickBenchmark {
+
+    @Param({"8", "32", "128"})
+    public int players;
+
+    @Param({"0", "64", "256"})
+    public int projectiles;
+
+    private GameEngineService engine;
+    private GameEngineService.MatchState match;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        engine = new GameEngineService(null, null, TimeSource.SYSTEM, null, new InMemoryMatchDirectory());
+        engine.buildPipeline();
+        match = new GameEngineService.MatchState(1, MapRegistryService.DEFAULT_MAP_NAME, new SimulationClock(60, 5),
+            MapRegistryService.compile(MapRegistryService.DEFAULT_WALLS), 42);
+        random = new Random(42);
+        for (int id = 0; id < players; id++) {
+            GameEngineService.Player player = new GameEngineService.Player(id, "Player" + id);
+            player.x = 60 + random.nextDouble() * (GameEngineService.MAP_WIDTH - 120);
+            player.y = 60 + random.nextDouble() * (GameEngineService.MAP_HEIGHT - 120);
+            player.vx = random.nextDouble() * 6 - 3;
+            player.vy = random.nextDouble() * 6 - 3;
+            match.players.put(id, player);
+        }
+        topUp();
+    }
+
+    @Benchmark
+    public void step() {
+        topUp();
+        engine.step(match);
+    }
+
+    @Benchmark
+    public void checkCollisions() {
+        topUp();
+        engine.checkCollisions(match);
+    }
+
+    @Benchmark
+    public void updateProjectiles() {
+        topUp();
+        engine.updateProjectiles(match);
+        match.clock.completeStep();
+    }
+
+    private void topUp() {
+        ProjectilePool pool = match.projectiles;
+        long tick = match.clock.getTick();
+        while (pool.size() < projectiles) {
+            pool.spawn(random.nextDouble() * GameEngineService.MAP_WIDTH, random.nextDouble() * GameEngineService.MAP_HEIGHT,
+                random.nextDouble() * 2 * Math.PI, 300.0, random.nextInt(players), tick);
+        }
+        for (GameEngineService.Player player : match.players.values()) {
+            if (!player.alive) {
+                player.alive = true;
+                player.health = 100;
+            }
+            // Nobody gets to win and pause the match
+            if (player.currentWeaponIndex >= GameEngineService.GUN_GAME_WEAPONS.size() - 1) {
+                player.currentWeaponIndex = 0;
+            }
+        }
+        match.dirty = false;
+    }
+}
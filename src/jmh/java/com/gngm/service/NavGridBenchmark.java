@@ -0,0 +1,81 @@
+package com.gngm.service;
+
+import com.gngm.engine.NavGrid;
+import com.gngm.engine.WallGeometry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Bot pathfinding costs on the default map. buildGrid is the one-off cost of a new
+// layout, walkability plus every waypoint's flow field; flowStep is what a bot pays per
+// decision, lineOfSight what it pays per shot.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NavGridBenchmark {
+
+    private static final int POINTS = 4096;
+
+    private WallGeometry walls;
+    private NavGrid nav;
+    private final double[] xs = new double[POINTS];
+    private final double[] ys = new double[POINTS];
+    private final double[] endXs = new double[POINTS];
+    private final double[] endYs = new double[POINTS];
+    private final NavGrid.FlowField[] fields = new NavGrid.FlowField[POINTS];
+
+    @Setup
+    public void setup() {
+        walls = MapRegistryService.compile(MapRegistryService.DEFAULT_WALLS);
+        nav = walls.navGrid();
+        Random random = new Random(42);
+        for (int i = 0; i < POINTS; i++) {
+            xs[i] = random.nextDouble() * GameEngineService.MAP_WIDTH;
+            ys[i] = random.nextDouble() * GameEngineService.MAP_HEIGHT;
+            endXs[i] = random.nextDouble() * GameEngineService.MAP_WIDTH;
+            endYs[i] = random.nextDouble() * GameEngineService.MAP_HEIGHT;
+            fields[i] = nav.flowTo(nav.waypoint(random.nextInt(nav.waypointCount())));
+        }
+    }
+
+    @Benchmark
+    public NavGrid buildGrid() {
+        return NavGrid.build(walls, GameEngineService.MAP_WIDTH, GameEngineService.MAP_HEIGHT, 20, 20, 160);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int flowStep() {
+        int sum = 0;
+        for (int i = 0; i < POINTS; i++) {
+            sum += fields[i].next(nav.cellAt(xs[i], ys[i]));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int lineOfSight() {
+        int visible = 0;
+        for (int i = 0; i < POINTS; i++) {
+            if (walls.lineOfSight(xs[i], ys[i], endXs[i], endYs[i])) {
+                visible++;
+            }
+        }
+        return visible;
+    }
+}
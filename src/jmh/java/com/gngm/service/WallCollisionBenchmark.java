@@ -0,0 +1,114 @@
+package com.gngm.service;
+
+import com.gngm.engine.WallGeometry;
+import com.gngm.engine.WallRect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// collidesWithWall / projectileWallHit against the default map layout (the one
+// /api/map/walls serves), per query. Projectile sweeps are one step of a bullet at
+// 20 Hz, the longest step the engine is tuned for. linearScan is the old collidesWithWall
+// as a baseline: the same circle test against every wall of the layout, read from its maps.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WallCollisionBenchmark {
+
+    private static final int POINTS = 4096;
+    // 300 px/s over a 20 Hz step
+    private static final double PROJECTILE_STEP = 15.0;
+
+    private GameEngineService engine;
+    private WallGeometry walls;
+    private List<Map<String, Object>> layout;
+    private final double[] xs = new double[POINTS];
+    private final double[] ys = new double[POINTS];
+    private final double[] endXs = new double[POINTS];
+    private final double[] endYs = new double[POINTS];
+
+    @Setup
+    public void setup() {
+        engine = new GameEngineService(null, null, null, null, new InMemoryMatchDirectory());
+        walls = MapRegistryService.compile(MapRegistryService.DEFAULT_WALLS);
+        layout = new ArrayList<>();
+        for (WallRect wall : MapRegistryService.DEFAULT_WALLS) {
+            layout.add(Map.of("x", wall.x(), "y", wall.y(), "width", wall.width(), "height", wall.height()));
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < POINTS; i++) {
+            xs[i] = random.nextDouble() * GameEngineService.MAP_WIDTH;
+            ys[i] = random.nextDouble() * GameEngineService.MAP_HEIGHT;
+            double direction = random.nextDouble() * 2 * Math.PI;
+            endXs[i] = xs[i] + Math.cos(direction) * PROJECTILE_STEP;
+            endYs[i] = ys[i] + Math.sin(direction) * PROJECTILE_STEP;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int collidesWithWall() {
+        int hits = 0;
+        for (int i = 0; i < POINTS; i++) {
+            if (engine.collidesWithWall(walls, xs[i], ys[i])) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int projectileWallHit() {
+        int hits = 0;
+        for (int i = 0; i < POINTS; i++) {
+            if (engine.projectileWallHit(walls, xs[i], ys[i], endXs[i], endYs[i]) <= 1) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int linearScan() {
+        double radiusSq = GameEngineService.PLAYER_RADIUS * GameEngineService.PLAYER_RADIUS;
+        int hits = 0;
+        for (int i = 0; i < POINTS; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            for (Map<String, Object> wall : layout) {
+                double wx = ((Number) wall.get("x")).doubleValue();
+                double wy = ((Number) wall.get("y")).doubleValue();
+                double ww = ((Number) wall.get("width")).doubleValue();
+                double wh = ((Number) wall.get("height")).doubleValue();
+                double closestX = Math.max(wx, Math.min(x, wx + ww));
+                double closestY = Math.max(wy, Math.min(y, wy + wh));
+                double dx = x - closestX;
+                double dy = y - closestY;
+                if (dx * dx + dy * dy < radiusSq) {
+                    hits++;
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+}
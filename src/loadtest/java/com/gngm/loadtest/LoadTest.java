@@ -0,0 +1,182 @@
+package com.gngm.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gngm.GnGmApplication;
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Headless load generator: N STOMP clients over SockJS on /ws, spread over M matches,
+// each joining and then sending moves and shots at browser-like rates. Reports
+// input-to-snapshot latency, snapshot inter-arrival times and throughput, on stdout
+// and as JSON.
+//
+// Options (--name=value): clients, matches, duration and warmup in seconds, move-hz,
+// shoot-hz, tick-hz (the server's game.tick.rate-hz, the jitter baseline), url (a running server's SockJS endpoint; without it a server is started
+// in-process on H2), report (JSON output file).
+public class LoadTest {
+
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final Stats stats = new Stats();
+
+    LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        // Client and server threads aren't all daemons
+        try {
+            new LoadTest(options).run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        int clients = option("clients", 64);
+        int matches = Math.max(1, option("matches", 8));
+        int duration = option("duration", 30);
+        int warmup = option("warmup", 5);
+        int moveHz = Math.max(1, option("move-hz", 60));
+        int shootHz = option("shoot-hz", 2);
+        int tickHz = Math.max(1, option("tick-hz", 60));
+        String url = options.get("url");
+
+        ConfigurableApplicationContext server = null;
+        if (url == null) {
+            server = new SpringApplicationBuilder(GnGmApplication.class).profiles("loadtest").run();
+            url = "ws://localhost:" + server.getEnvironment().getProperty("local.server.port") + "/ws";
+        }
+        System.out.printf("Load test: %d clients, %d matches, %d Hz moves, %d Hz shots against %s%n",
+            clients, matches, moveHz, shootHz, url);
+
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        // Keyframes of a full match are well over the default 8 KB
+        container.setDefaultMaxTextMessageBufferSize(1 << 20);
+        container.setDefaultMaxBinaryMessageBufferSize(1 << 20);
+        WebSocketStompClient stompClient = new WebSocketStompClient(
+            new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient(container)))));
+        stompClient.setInboundMessageSizeLimit(1 << 20);
+
+        // One loop task per client, so a client's sends never overlap
+        ScheduledExecutorService loops = Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), r -> {
+                Thread thread = new Thread(r, "load-client");
+                thread.setDaemon(true);
+                return thread;
+            });
+        int shootEvery = shootHz > 0 ? Math.max(1, moveHz / shootHz) : 0;
+        long periodMicros = 1_000_000L / moveHz;
+        List<SimulatedClient> simulated = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            SimulatedClient client = new SimulatedClient(1 + i % matches, 1 + i, shootEvery, objectMapper, stats);
+            simulated.add(client);
+            stompClient.connectAsync(url, client);
+            loops.scheduleAtFixedRate(client::tick, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+            // Ramp up instead of opening every connection at once
+            Thread.sleep(5);
+        }
+
+        TimeUnit.SECONDS.sleep(warmup);
+        long connected = simulated.stream().filter(SimulatedClient::isConnected).count();
+        stats.reset();
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(duration);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Map<String, Object> report = report(clients, connected, matches, tickHz, seconds, simulated);
+
+        loops.shutdownNow();
+        simulated.forEach(SimulatedClient::disconnect);
+        if (server != null) {
+            server.close();
+        }
+        write(report);
+    }
+
+    private Map<String, Object> report(int clients, long connected, int matches, int tickHz, double seconds,
+                                       List<SimulatedClient> simulated) {
+        Samples.Summary latency = stats.latency.summarize();
+        Samples.Summary interArrival = stats.interArrival.summarize();
+        double period = 1000.0 / tickHz;
+        long errors = simulated.stream().mapToLong(client -> client.errors.get()).sum();
+
+        System.out.printf("Connected: %d/%d clients in %d matches, %.1f s measured%n", connected, clients, matches, seconds);
+        System.out.printf("Inputs sent: %.0f/s, snapshots received: %.0f/s, %.1f KB/s, errors: %d%n",
+            stats.inputsSent.sum() / seconds, stats.snapshots.sum() / seconds, stats.bytes.sum() / seconds / 1024, errors);
+        System.out.println("Input-to-snapshot latency (ms): " + latency);
+        System.out.println("Snapshot inter-arrival (ms):    " + interArrival);
+        double jitter = Math.max(0, interArrival.p99() - period);
+        System.out.printf("Jitter: p99 inter-arrival is %.3f ms over the %.3f ms tick%n", jitter, period);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("clients", clients);
+        report.put("connected", connected);
+        report.put("matches", matches);
+        report.put("seconds", seconds);
+        report.put("inputsPerSecond", stats.inputsSent.sum() / seconds);
+        report.put("snapshotsPerSecond", stats.snapshots.sum() / seconds);
+        report.put("bytesPerSecond", stats.bytes.sum() / seconds);
+        report.put("errors", errors);
+        report.put("latencyMillis", latency);
+        report.put("interArrivalMillis", interArrival);
+        report.put("jitterMillis", jitter);
+        return report;
+    }
+
+    private void write(Map<String, Object> report) throws IOException {
+        File file = new File(options.getOrDefault("report", "target/loadtest-report.json"));
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writeValue(file, report);
+        System.out.println("Report written to " + file);
+    }
+
+    private int option(String name, int defaultValue) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    // Shared by all clients; reset once the warmup is over
+    static class Stats {
+        final Samples latency = new Samples();
+        final Samples interArrival = new Samples();
+        final LongAdder inputsSent = new LongAdder();
+        final LongAdder snapshots = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+
+        void reset() {
+            latency.clear();
+            interArrival.clear();
+            inputsSent.reset();
+            snapshots.reset();
+            bytes.reset();
+        }
+    }
+}
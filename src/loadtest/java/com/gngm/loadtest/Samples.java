@@ -0,0 +1,55 @@
+package com.gngm.loadtest;
+
+import java.util.Arrays;
+
+// Raw nanosecond samples, kept so percentiles are exact rather than bucketed
+class Samples {
+
+    private long[] values = new long[1024];
+    private int count;
+
+    synchronized void record(long nanos) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count++] = nanos;
+    }
+
+    synchronized void clear() {
+        count = 0;
+    }
+
+    synchronized Summary summarize() {
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        double mean = 0;
+        for (long value : sorted) {
+            mean += value;
+        }
+        mean = count > 0 ? mean / count : 0;
+        return new Summary(count, millis(mean), percentile(sorted, 0.5), percentile(sorted, 0.9),
+            percentile(sorted, 0.99), percentile(sorted, 0.999), count > 0 ? millis(sorted[count - 1]) : 0);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return millis(sorted[Math.max(0, Math.min(sorted.length - 1, index))]);
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / 1_000) / 1_000.0;
+    }
+
+    // Milliseconds
+    record Summary(int count, double mean, double p50, double p90, double p99, double p999, double max) {
+
+        @Override
+        public String toString() {
+            return String.format("n=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f",
+                count, mean, p50, p90, p99, p999, max);
+        }
+    }
+}
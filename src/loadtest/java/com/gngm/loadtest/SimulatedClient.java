@@ -0,0 +1,161 @@
+package com.gngm.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One player: joins its match, then sends a move every tick of its loop and a shot at
+// the configured rate, like the browser client. Every move carries a unique rotation;
+// the first snapshot on the player's own stream showing that rotation closes the
+// input-to-snapshot latency sample for it.
+class SimulatedClient extends StompSessionHandlerAdapter {
+
+    private static final String STATE_QUEUE = "/user/queue/game/state";
+    // Moves still waiting to show up; older ones are superseded once a newer one shows
+    private static final int MAX_PENDING = 256;
+
+    private final long matchId;
+    private final int playerId;
+    private final int shootEvery;
+    private final ObjectMapper objectMapper;
+    private final LoadTest.Stats stats;
+    private final Random random;
+    private final Map<Double, Long> pendingMoves = new ConcurrentHashMap<>();
+
+    private volatile StompSession session;
+    private long moves;
+    private double vx;
+    private double vy;
+    private volatile long lastSnapshotNanos;
+    final AtomicLong errors = new AtomicLong();
+
+    SimulatedClient(long matchId, int playerId, int shootEvery, ObjectMapper objectMapper, LoadTest.Stats stats) {
+        this.matchId = matchId;
+        this.playerId = playerId;
+        this.shootEvery = shootEvery;
+        this.objectMapper = objectMapper;
+        this.stats = stats;
+        this.random = new Random(playerId);
+    }
+
+    @Override
+    public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+        this.session = session;
+        session.subscribe(STATE_QUEUE, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                onSnapshot((byte[]) payload);
+            }
+        });
+        send("/app/game/join", Map.of("matchId", matchId, "playerId", playerId,
+            "username", "Load" + playerId, "mapName", "Map1"));
+    }
+
+    @Override
+    public void handleTransportError(StompSession session, Throwable exception) {
+        error(exception);
+    }
+
+    @Override
+    public void handleException(StompSession session, StompCommand command, StompHeaders headers, byte[] payload,
+                                Throwable exception) {
+        error(exception);
+    }
+
+    // Only the first error per client is printed, the rest are counted
+    private void error(Throwable exception) {
+        if (errors.getAndIncrement() == 0) {
+            System.err.println("Client " + playerId + ": " + exception);
+        }
+    }
+
+    boolean isConnected() {
+        StompSession current = session;
+        return current != null && current.isConnected();
+    }
+
+    // Called by the client's loop task, never concurrently with itself
+    void tick() {
+        if (!isConnected()) {
+            return;
+        }
+        if (moves % 30 == 0) {
+            // Change direction every half second or so
+            vx = random.nextInt(3) * 5 - 5;
+            vy = random.nextInt(3) * 5 - 5;
+        }
+        moves++;
+        double rotation = (moves % 6000) / 1000.0 - 3.0;
+        if (pendingMoves.size() >= MAX_PENDING) {
+            pendingMoves.clear();
+        }
+        pendingMoves.put(rotation, System.nanoTime());
+        send("/app/game/move", Map.of("matchId", matchId, "playerId", playerId, "vx", vx, "vy", vy,
+            "rotation", rotation));
+        stats.inputsSent.increment();
+        if (shootEvery > 0 && moves % shootEvery == 0) {
+            send("/app/game/shoot", Map.of("matchId", matchId, "playerId", playerId,
+                "direction", random.nextDouble() * 2 * Math.PI - Math.PI));
+            stats.inputsSent.increment();
+        }
+    }
+
+    void disconnect() {
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            current.disconnect();
+        }
+    }
+
+    private void onSnapshot(byte[] payload) {
+        long now = System.nanoTime();
+        stats.snapshots.increment();
+        stats.bytes.add(payload.length);
+        long last = lastSnapshotNanos;
+        if (last != 0) {
+            stats.interArrival.record(now - last);
+        }
+        lastSnapshotNanos = now;
+        try {
+            JsonNode rotation = objectMapper.readTree(payload).path("players").path(Integer.toString(playerId)).get("rotation");
+            if (rotation != null) {
+                Long sent = pendingMoves.remove(rotation.asDouble());
+                if (sent != null) {
+                    stats.latency.record(now - sent);
+                    // Anything sent before it was overwritten on the server and will never show
+                    pendingMoves.values().removeIf(time -> time < sent);
+                }
+            }
+        } catch (IOException e) {
+            error(e);
+        }
+    }
+
+    private void send(String destination, Map<String, Object> body) {
+        StompHeaders headers = new StompHeaders();
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        try {
+            session.send(headers, objectMapper.writeValueAsBytes(body));
+        } catch (Exception e) {
+            error(e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.gngm.entity.MapEntity;
 import com.gngm.entity.Weapon;
 import com.gngm.repository.MapRepository;
 import com.gngm.repository.WeaponRepository;
+import com.gngm.service.MapRegistryService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,7 +14,7 @@ import java.util.List;
 @Configuration
 public class DataSeeder {
     @Bean
-    public CommandLineRunner seedData(WeaponRepository weaponRepository, MapRepository mapRepository) {
+    public CommandLineRunner seedData(WeaponRepository weaponRepository, MapRepository mapRepository, MapRegistryService mapRegistry) {
         return args -> {
             if (weaponRepository.count() == 0) {
                 weaponRepository.saveAll(List.of(
@@ -30,6 +31,11 @@ public class DataSeeder {
                     new MapEntity(null, "Mansion", "{\"layout\":\"complex\"}")
                 ));
             }
+            // The arena layout the engine has always used
+            if (mapRepository.findFirstByNameOrderByIdAsc(MapRegistryService.DEFAULT_MAP_NAME).isEmpty()) {
+                mapRepository.save(new MapEntity(null, MapRegistryService.DEFAULT_MAP_NAME,
+                    mapRegistry.toLayoutData(MapRegistryService.DEFAULT_WALLS)));
+            }
         };
     }
 } 
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.gngm.config;
+
+import com.gngm.engine.LaneExecutor;
+import com.gngm.engine.MatchTickScheduler;
+import com.gngm.engine.TimeSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class GameEngineConfig {
+
+    // 0 means one worker per available core
+    @Value("${game.tick.workers:0}")
+    private int tickWorkers;
+
+    @Value("${game.tick.rate-hz:60}")
+    private int tickRateHz;
+
+    @Value("${game.publish.threads:2}")
+    private int publishThreads;
+
+    // 0 means one lane per available core
+    @Value("${game.inbound.lanes:0}")
+    private int inboundLanes;
+
+    @Value("${game.inbound.queue-capacity:1024}")
+    private int inboundQueueCapacity;
+
+    @Value("${game.inbound.reserved-capacity:256}")
+    private int inboundReservedCapacity;
+
+    // Workers wake once per simulation step; each match's clock decides how many steps to run
+    @Bean(destroyMethod = "stop")
+    public MatchTickScheduler matchTickScheduler() {
+        return new MatchTickScheduler(tickWorkers, TimeUnit.SECONDS.toNanos(1) / tickRateHz);
+    }
+
+    // Encodes and sends snapshots so tick workers never wait on serialization or sockets
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService snapshotPublisher() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, publishThreads), r -> {
+            Thread thread = new Thread(r, "snapshot-publisher-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Client STOMP messages, per-match ordering over N hashed lanes: a match's inputs stay
+    // in order, but matches share lanes, so a flood of moves on one match fills the
+    // sheddable slots of every match hashed to its lane
+    @Bean(destroyMethod = "stop")
+    public LaneExecutor inboundLanes() {
+        LaneExecutor lanes = new LaneExecutor("inbound", inboundLanes, inboundQueueCapacity, inboundReservedCapacity);
+        lanes.start();
+        return lanes;
+    }
+
+    @Bean
+    public TimeSource timeSource() {
+        return TimeSource.SYSTEM;
+    }
+}
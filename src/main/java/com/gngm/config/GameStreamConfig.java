@@ -0,0 +1,46 @@
+package com.gngm.config;
+
+import com.gngm.controller.GameStreamHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Raw WebSocket game stream, next to the STOMP endpoints in WebSocketConfig
+@Configuration
+@EnableWebSocket
+public class GameStreamConfig implements WebSocketConfigurer {
+
+    private final GameStreamHandler gameStreamHandler;
+
+    @Value("${game.stream.sender-threads:4}")
+    private int senderThreads;
+
+    public GameStreamConfig(@Lazy GameStreamHandler gameStreamHandler) {
+        this.gameStreamHandler = gameStreamHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(gameStreamHandler, "/game-stream")
+            .setAllowedOriginPatterns("*");
+    }
+
+    // Socket writes for game streams; a slow client ties up one of these, never a publisher
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService gameStreamSender() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, senderThreads), r -> {
+            Thread thread = new Thread(r, "game-stream-sender-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.gngm.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Counts client SEND frames per /app destination, i.e. per @MessageMapping, as
+// gngm.ws.inbound{destination=...}. Destinations come from clients, so only the first
+// few distinct ones get their own counter.
+@Component
+public class InboundMessageMetrics implements ChannelInterceptor {
+
+    private static final String APP_PREFIX = "/app";
+    private static final int MAX_DESTINATIONS = 32;
+
+    private final MeterRegistry registry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public InboundMessageMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            if (destination != null && destination.startsWith(APP_PREFIX)) {
+                counter(destination.substring(APP_PREFIX.length())).increment();
+            }
+        }
+        return message;
+    }
+
+    private Counter counter(String destination) {
+        Counter counter = counters.get(destination);
+        if (counter != null) {
+            return counter;
+        }
+        String tag = counters.size() < MAX_DESTINATIONS ? destination : "other";
+        return counters.computeIfAbsent(tag, d -> Counter.builder("gngm.ws.inbound")
+            .description("Messages received from clients per destination")
+            .tag("destination", d)
+            .register(registry));
+    }
+}
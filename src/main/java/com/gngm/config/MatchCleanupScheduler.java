@@ -0,0 +1,24 @@
+package com.gngm.config;
+
+import com.gngm.service.MatchService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Match simulation and broadcasting run in GameEngineService's tick pipeline;
+// only slow housekeeping is left on Spring's scheduler
+@Configuration
+@EnableScheduling
+public class MatchCleanupScheduler {
+    private final MatchService matchService;
+
+    public MatchCleanupScheduler(MatchService matchService) {
+        this.matchService = matchService;
+    }
+
+    // Clean up inactive matches every 10 minutes
+    @Scheduled(fixedRate = 600000) // 10 minutes
+    public void cleanupInactiveMatches() {
+        matchService.cleanupInactiveMatches();
+    }
+}
@@ -0,0 +1,48 @@
+package com.gngm.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Pub/sub beans shared by the Redis broadcast backend and match directory; only created
+// when one of them is enabled. The connection itself comes from spring.data.redis.*
+@Configuration
+@ConditionalOnExpression("'${game.broadcast.backend:local}' == 'redis' or '${game.cluster.directory:memory}' == 'redis'")
+public class RedisConfig {
+
+    // Encoded snapshots are published as raw bytes
+    @Bean
+    public RedisTemplate<String, byte[]> broadcastRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        return template;
+    }
+
+    // One thread, so relayed messages and forwarded inputs keep their publish order
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService redisRelayExecutor() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "redis-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Bean
+    public RedisMessageListenerContainer broadcastListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    ExecutorService redisRelayExecutor) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(redisRelayExecutor);
+        return container;
+    }
+}
@@ -38,8 +38,12 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.OPTIONS, "/ws/**").permitAll()
                 .requestMatchers(HttpMethod.POST, "/ws/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/ws/**").permitAll()
+                .requestMatchers("/ws-native", "/game-stream").permitAll()
                 .requestMatchers("/ws/**", "/ws", "/", "/index.html", "/js/**", "/css/**", "/favicon.ico").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                // Metrics show per-match and per-node internals; scrape with an admin token
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers("/api/map/**").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/matches").permitAll()
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
@@ -1,6 +1,7 @@
 package com.gngm.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -10,16 +11,34 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final InboundMessageMetrics inboundMessageMetrics;
+
+    public WebSocketConfig(InboundMessageMetrics inboundMessageMetrics) {
+        this.inboundMessageMetrics = inboundMessageMetrics;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // /queue backs the per-session /user/queue/... destinations
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(inboundMessageMetrics);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Handle each session's frames one at a time, in the order received, so the
+        // handlers hand them to the match lanes in that order too
+        registry.setPreserveReceiveOrder(true);
         registry.addEndpoint("/ws")
             .setAllowedOriginPatterns("*")
             .withSockJS();
+        // Plain WebSocket endpoint for clients that take binary snapshot frames, which SockJS can't carry
+        registry.addEndpoint("/ws-native")
+            .setAllowedOriginPatterns("*");
     }
 } 
\ No newline at end of file
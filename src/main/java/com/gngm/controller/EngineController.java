@@ -0,0 +1,139 @@
+package com.gngm.controller;
+
+import com.gngm.engine.LaneExecutor;
+import com.gngm.engine.MatchTickScheduler;
+import com.gngm.engine.TickPipeline;
+import com.gngm.engine.WallRect;
+import com.gngm.service.BotManager;
+import com.gngm.service.GameEngineService;
+import com.gngm.service.GameStateBroadcaster;
+import com.gngm.service.MatchDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/engine")
+public class EngineController {
+
+    private final GameEngineService gameEngineService;
+    private final GameStateBroadcaster broadcaster;
+    private final GameStreamHandler gameStreamHandler;
+    private final MatchDirectory directory;
+    private final BotManager botManager;
+    private final LaneExecutor inboundLanes;
+
+    @Autowired
+    public EngineController(GameEngineService gameEngineService, GameStateBroadcaster broadcaster,
+                            GameStreamHandler gameStreamHandler, MatchDirectory directory, BotManager botManager,
+                            LaneExecutor inboundLanes) {
+        this.gameEngineService = gameEngineService;
+        this.broadcaster = broadcaster;
+        this.gameStreamHandler = gameStreamHandler;
+        this.directory = directory;
+        this.botManager = botManager;
+        this.inboundLanes = inboundLanes;
+    }
+
+    @GetMapping("/workers")
+    public ResponseEntity<List<MatchTickScheduler.WorkerStats>> getWorkers() {
+        return ResponseEntity.ok(gameEngineService.getWorkerStats());
+    }
+
+    @GetMapping("/clocks")
+    public ResponseEntity<Map<Long, GameEngineService.ClockStats>> getClocks() {
+        return ResponseEntity.ok(gameEngineService.getClockStats());
+    }
+
+    // Time per tick stage (input, movement, ..., publish) across all matches
+    @GetMapping("/stages")
+    public ResponseEntity<List<TickPipeline.StageStats>> getStages() {
+        return ResponseEntity.ok(gameEngineService.getStageStats());
+    }
+
+    // Queued and processed player inputs per match
+    @GetMapping("/inputs")
+    public ResponseEntity<Map<Long, GameEngineService.InputStats>> getInputs() {
+        return ResponseEntity.ok(gameEngineService.getInputStats());
+    }
+
+    // Client messages queued, handled, shed (moves) and rejected (everything else) per inbound lane
+    @GetMapping("/lanes")
+    public ResponseEntity<List<LaneExecutor.LaneStats>> getLanes() {
+        return ResponseEntity.ok(inboundLanes.getLaneStats());
+    }
+
+    // Snapshots requested by state changes vs. published, and ticks skipped as idle
+    @GetMapping("/publishes")
+    public ResponseEntity<Map<Long, GameEngineService.PublishStats>> getPublishes() {
+        return ResponseEntity.ok(gameEngineService.getPublishStats());
+    }
+
+    // Keyframe/delta counts and bytes sent vs. saved per match
+    @GetMapping("/broadcasts")
+    public ResponseEntity<Map<Long, GameStateBroadcaster.BroadcastStats>> getBroadcasts() {
+        return ResponseEntity.ok(broadcaster.getStats());
+    }
+
+    // Snapshot encoding and broker send time on the publisher threads
+    @GetMapping("/publisher")
+    public ResponseEntity<GameStateBroadcaster.PublisherStats> getPublisher() {
+        return ResponseEntity.ok(broadcaster.getPublisherStats());
+    }
+
+    // Raw game stream sockets: messages sent, and unsent ones replaced or dropped for slow clients
+    @GetMapping("/streams")
+    public ResponseEntity<GameStreamHandler.StreamStats> getStreams() {
+        return ResponseEntity.ok(gameStreamHandler.getStats());
+    }
+
+    // Game-server nodes in the match directory and their last heartbeat
+    @GetMapping("/nodes")
+    public ResponseEntity<List<MatchDirectory.NodeStatus>> getNodes() {
+        return ResponseEntity.ok(directory.getNodes());
+    }
+
+    // Recorded match journals (game.journal.enabled)
+    @GetMapping("/journals")
+    public ResponseEntity<List<String>> getJournals() throws IOException {
+        return ResponseEntity.ok(gameEngineService.listJournals());
+    }
+
+    // Replays a recorded match on the calling thread and reports its speed and whether it came out the same
+    @PostMapping("/journals/{name}/replay")
+    public ResponseEntity<GameEngineService.ReplayResult> replayJournal(@PathVariable String name) throws IOException {
+        try {
+            return ResponseEntity.ok(gameEngineService.replayJournal(name));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Fills a match with bots, up to game.bots.max-per-match; returns the ids added
+    @PostMapping("/matches/{matchId}/bots")
+    public ResponseEntity<List<Integer>> addBots(@PathVariable long matchId,
+                                                 @RequestParam(defaultValue = "1") int count) {
+        return ResponseEntity.ok(botManager.addBots(matchId, count));
+    }
+
+    @DeleteMapping("/matches/{matchId}/bots")
+    public ResponseEntity<Integer> removeBots(@PathVariable long matchId) {
+        return ResponseEntity.ok(botManager.removeBots(matchId));
+    }
+
+    // Recompiles a map after its layout changed in the database
+    @PostMapping("/maps/{mapName}/reload")
+    public ResponseEntity<List<WallRect>> reloadMap(@PathVariable String mapName) {
+        return ResponseEntity.ok(gameEngineService.reloadMap(mapName).getWalls());
+    }
+}
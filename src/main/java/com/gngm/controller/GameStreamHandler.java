@@ -0,0 +1,93 @@
+package com.gngm.controller;
+
+import com.gngm.service.GameStateBroadcaster;
+import com.gngm.service.GameStreamSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+// Raw WebSocket endpoint for the high-frequency snapshot stream:
+//   /game-stream?matchId=1&playerId=42&format=binary|json
+// Joining and inputs still go over STOMP; this connection only carries the player's
+// filtered keyframes, deltas and radar messages, as binary or text frames.
+@Component
+public class GameStreamHandler extends AbstractWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameStreamHandler.class);
+
+    private final GameStateBroadcaster broadcaster;
+    private final Executor sender;
+    private final Map<String, GameStreamSession> sessions = new ConcurrentHashMap<>();
+
+    @Value("${game.stream.send-time-limit-ms:2000}")
+    private int sendTimeLimitMillis;
+
+    @Value("${game.stream.buffer-size-limit:524288}")
+    private int bufferSizeLimit;
+
+    @Autowired
+    public GameStreamHandler(GameStateBroadcaster broadcaster, @Qualifier("gameStreamSender") Executor sender) {
+        this.broadcaster = broadcaster;
+        this.sender = sender;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        long matchId;
+        int playerId;
+        try {
+            matchId = Long.parseLong(params.getFirst("matchId"));
+            playerId = Integer.parseInt(params.getFirst("playerId"));
+        } catch (NumberFormatException e) {
+            session.close(CloseStatus.BAD_DATA.withReason("matchId and playerId are required"));
+            return;
+        }
+        boolean binary = !"json".equalsIgnoreCase(params.getFirst("format"));
+        GameStreamSession stream = new GameStreamSession(session, binary, sender, sendTimeLimitMillis, bufferSizeLimit);
+        sessions.put(session.getId(), stream);
+        broadcaster.addViewer(matchId, playerId, stream);
+        logger.info("Game stream {} opened for player {} in match {} ({})", session.getId(), playerId, matchId,
+            binary ? "binary" : "json");
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessions.remove(session.getId());
+        broadcaster.removeViewer(session.getId());
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        logger.debug("Game stream {} transport error: {}", session.getId(), exception.getMessage());
+    }
+
+    public StreamStats getStats() {
+        long sent = 0;
+        long bytes = 0;
+        long replaced = 0;
+        long dropped = 0;
+        for (GameStreamSession stream : sessions.values()) {
+            sent += stream.getMessagesSent();
+            bytes += stream.getBytesSent();
+            replaced += stream.getReplaced();
+            dropped += stream.getDropped();
+        }
+        return new StreamStats(sessions.size(), sent, bytes, replaced, dropped);
+    }
+
+    public record StreamStats(int sessions, long messagesSent, long bytesSent, long replaced, long dropped) {
+    }
+}
@@ -1,21 +1,49 @@
 package com.gngm.controller;
 
+import com.gngm.engine.LaneExecutor;
 import com.gngm.service.GameEngineService;
+import com.gngm.service.GameStateBroadcaster;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.util.Map;
+
+// Handlers run on the shared inbound pool and only hand each message to the lane its
+// match hashes to (GameEngineConfig.inboundLanes), which does the work: per-match
+// ordering over N hashed lanes, so a hot match can delay the others sharing its lane.
+// Moves are shed when their lane is backed up (gngm.ws.inbound.shed), since the
+// client's next move supersedes them. Joins, shots and respawns use the lane's reserved
+// slots, blocking the inbound-pool thread for up to enqueue-timeout-ms; if those stay
+// full the client gets an error on /user/queue/errors (gngm.ws.inbound.rejected).
 @Controller
 @RequiredArgsConstructor
 public class GameWebSocketController {
 
+    private static final Logger logger = LoggerFactory.getLogger(GameWebSocketController.class);
+
+    public static final String ERROR_QUEUE = "/queue/errors";
+
     private final GameEngineService gameEngine;
+    private final GameStateBroadcaster broadcaster;
+    private final LaneExecutor inboundLanes;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Value("${game.inbound.enqueue-timeout-ms:100}")
+    private long enqueueTimeoutMs;
 
     // Message classes
     public static class PlayerJoinMessage {
         public long matchId;
         public int playerId;
         public String username;
+        public String mapName;
     }
 
     public static class MovementMessage {
@@ -39,27 +67,52 @@ public class GameWebSocketController {
 
     // Handle player joining
     @MessageMapping("/game/join")
-    public void handlePlayerJoin(PlayerJoinMessage message) {
-        System.out.println("Player joining: " + message.playerId + " - " + message.username + " to match " + message.matchId);
-        gameEngine.addPlayer(message.matchId, message.playerId, message.username);
+    public void handlePlayerJoin(PlayerJoinMessage message, SimpMessageHeaderAccessor headerAccessor) {
+        String sessionId = headerAccessor.getSessionId();
+        dispatch("/game/join", message.matchId, sessionId, () -> {
+            logger.debug("Player joining: {} - {} to match {}", message.playerId, message.username, message.matchId);
+            // This session's /user/queue/game/state stream follows the joining player
+            broadcaster.addViewer(message.matchId, message.playerId, sessionId);
+            gameEngine.addPlayer(message.matchId, message.playerId, message.username, message.mapName);
+        });
     }
 
     // Handle player movement
     @MessageMapping("/game/move")
     public void handlePlayerMovement(MovementMessage message) {
-        gameEngine.movePlayer(message.matchId, message.playerId, message.vx, message.vy, message.rotation);
+        inboundLanes.offer(message.matchId, () ->
+            gameEngine.movePlayer(message.matchId, message.playerId, message.vx, message.vy, message.rotation));
     }
 
     // Handle player shooting
     @MessageMapping("/game/shoot")
-    public void handlePlayerShooting(ShootingMessage message) {
-        gameEngine.playerShoot(message.matchId, message.playerId, message.direction);
+    public void handlePlayerShooting(ShootingMessage message, SimpMessageHeaderAccessor headerAccessor) {
+        dispatch("/game/shoot", message.matchId, headerAccessor.getSessionId(),
+            () -> gameEngine.playerShoot(message.matchId, message.playerId, message.direction));
     }
 
     // Handle player respawn
     @MessageMapping("/game/respawn")
-    public void handlePlayerRespawn(RespawnMessage message) {
-        System.out.println("Player respawning: " + message.playerId + " in match " + message.matchId);
-        gameEngine.respawnPlayer(message.matchId, message.playerId);
+    public void handlePlayerRespawn(RespawnMessage message, SimpMessageHeaderAccessor headerAccessor) {
+        dispatch("/game/respawn", message.matchId, headerAccessor.getSessionId(), () -> {
+            logger.debug("Player respawning: {} in match {}", message.playerId, message.matchId);
+            gameEngine.respawnPlayer(message.matchId, message.playerId);
+        });
+    }
+
+    // Queues a message that must not be shed; tells the session if its lane stayed full
+    private void dispatch(String destination, long matchId, String sessionId, Runnable task) {
+        if (inboundLanes.execute(matchId, task, enqueueTimeoutMs)) {
+            return;
+        }
+        logger.warn("Inbound lane for match {} is full, refused {} from session {}", matchId, destination, sessionId);
+        if (sessionId != null) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setSessionId(sessionId);
+            accessor.setLeaveMutable(true);
+            messagingTemplate.convertAndSendToUser(sessionId, ERROR_QUEUE,
+                Map.of("destination", destination, "matchId", matchId, "error", "server busy, retry"),
+                accessor.getMessageHeaders());
+        }
     }
 }
@@ -0,0 +1,162 @@
+package com.gngm.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// Compact binary encoding of snapshot messages, written into a reusable buffer.
+// All values are big-endian. Layout:
+//
+//   u8 version, u8 flags (1 = keyframe, 2 = game over, 4 = radar), u32 tick,
+//   u8 winner name length + UTF-8 bytes (length 0 = none)
+//   sections, each u16 count + entries:
+//     keyframe, radar: players, projectiles
+//     delta:    players, removed players, projectiles, removed projectiles
+//   player:     i32 id, u8 field mask (SnapshotWriter.FIELD_*), then the masked fields in
+//               bit order: username (u8 length + UTF-8), x u16, y u16, rotation u16,
+//               health u8, alive u8, weapon u8
+//   projectile: i32 id, u8 spawned, [i32 owner, direction u16 if spawned], x u16, y u16
+//   removed:    i32 id
+//
+// Positions are fixed point with 1/32 px resolution, so the 1600x1200 map fits in
+// 16 bits; angles are fractions of a full turn in 16 bits.
+public class BinarySnapshotWriter implements SnapshotWriter {
+
+    public static final int VERSION = 1;
+    public static final double POSITION_SCALE = 32.0;
+    private static final double ANGLE_SCALE = 65536.0 / (2 * Math.PI);
+
+    private ByteBuffer buffer;
+    private int countPosition;
+    private int count;
+
+    public BinarySnapshotWriter(int initialCapacity) {
+        buffer = ByteBuffer.allocate(initialCapacity).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    public void begin(MessageType type, MatchSnapshot snapshot) {
+        buffer.clear();
+        ensure(7);
+        buffer.put((byte) VERSION);
+        int flags = type == MessageType.KEYFRAME ? 1 : type == MessageType.RADAR ? 4 : 0;
+        buffer.put((byte) (flags | (snapshot.isGameOver() ? 2 : 0)));
+        buffer.putInt((int) snapshot.getTick());
+        putString(snapshot.getWinnerName());
+    }
+
+    @Override
+    public void beginSection(Section section) {
+        ensure(2);
+        countPosition = buffer.position();
+        buffer.putShort((short) 0);
+        count = 0;
+    }
+
+    @Override
+    public void player(MatchSnapshot snapshot, int i, int fields) {
+        ensure(5 + 2 + 2 + 2 + 3);
+        buffer.putInt(snapshot.playerId(i));
+        buffer.put((byte) fields);
+        if ((fields & FIELD_USERNAME) != 0) {
+            putString(snapshot.username(i));
+            ensure(2 + 2 + 2 + 3);
+        }
+        if ((fields & FIELD_X) != 0) {
+            buffer.putShort(quantizePosition(snapshot.playerX(i)));
+        }
+        if ((fields & FIELD_Y) != 0) {
+            buffer.putShort(quantizePosition(snapshot.playerY(i)));
+        }
+        if ((fields & FIELD_ROTATION) != 0) {
+            buffer.putShort(quantizeAngle(snapshot.rotation(i)));
+        }
+        if ((fields & FIELD_HEALTH) != 0) {
+            buffer.put((byte) Math.max(0, Math.min(255, snapshot.health(i))));
+        }
+        if ((fields & FIELD_ALIVE) != 0) {
+            buffer.put((byte) (snapshot.alive(i) ? 1 : 0));
+        }
+        if ((fields & FIELD_WEAPON) != 0) {
+            buffer.put((byte) snapshot.weaponIndex(i));
+        }
+        count++;
+    }
+
+    @Override
+    public void projectile(MatchSnapshot snapshot, int i, boolean spawned) {
+        ensure(5 + 6 + 4);
+        buffer.putInt(snapshot.projectileId(i));
+        buffer.put((byte) (spawned ? 1 : 0));
+        if (spawned) {
+            buffer.putInt(snapshot.owner(i));
+            buffer.putShort(quantizeAngle(snapshot.direction(i)));
+        }
+        buffer.putShort(quantizePosition(snapshot.projectileX(i)));
+        buffer.putShort(quantizePosition(snapshot.projectileY(i)));
+        count++;
+    }
+
+    @Override
+    public void removed(int id) {
+        ensure(4);
+        buffer.putInt(id);
+        count++;
+    }
+
+    @Override
+    public void endSection() {
+        buffer.putShort(countPosition, (short) count);
+    }
+
+    @Override
+    public void end() {
+        buffer.flip();
+    }
+
+    // The encoded message, between position and limit; valid until the next begin()
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return buffer.limit();
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[buffer.limit()];
+        buffer.get(0, bytes);
+        return bytes;
+    }
+
+    public static short quantizePosition(double value) {
+        return (short) Math.max(0, Math.min(65535, Math.round(value * POSITION_SCALE)));
+    }
+
+    public static short quantizeAngle(double radians) {
+        return (short) Math.round(radians * ANGLE_SCALE);
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            ensure(1);
+            buffer.put((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 255);
+        ensure(1 + length);
+        buffer.put((byte) length);
+        buffer.put(bytes, 0, length);
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes))
+                .order(ByteOrder.BIG_ENDIAN);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+}
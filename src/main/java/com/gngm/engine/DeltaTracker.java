@@ -0,0 +1,147 @@
+package com.gngm.engine;
+
+import java.util.Objects;
+
+// Keeps the last snapshot sent on one stream and turns each new snapshot into
+// either a delta against it or a full keyframe. Keyframes go out every
+// keyframeInterval messages, on request (e.g. someone joined) and as the first
+// message. Callers must serialize write() per tracker.
+public class DeltaTracker {
+
+    private final int keyframeInterval;
+    private final MatchSnapshot baseline = new MatchSnapshot();
+    private boolean hasBaseline;
+    private int sinceKeyframe;
+    private volatile boolean keyframeRequested;
+
+    public DeltaTracker(int keyframeInterval) {
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+    }
+
+    public void requestKeyframe() {
+        keyframeRequested = true;
+    }
+
+    // Writes the snapshot and makes it the new baseline; returns true if it was a keyframe
+    public boolean write(MatchSnapshot current, SnapshotWriter out) {
+        boolean keyframe = keyframeRequested || !hasBaseline || sinceKeyframe >= keyframeInterval;
+        keyframeRequested = false;
+        out.begin(keyframe ? SnapshotWriter.MessageType.KEYFRAME : SnapshotWriter.MessageType.DELTA, current);
+        if (keyframe) {
+            writeKeyframe(current, out);
+        } else {
+            writeDelta(current, out);
+        }
+        out.end();
+        baseline.copyFrom(current);
+        hasBaseline = true;
+        sinceKeyframe = keyframe ? 0 : sinceKeyframe + 1;
+        return keyframe;
+    }
+
+    private void writeKeyframe(MatchSnapshot current, SnapshotWriter out) {
+        out.beginSection(SnapshotWriter.Section.PLAYERS);
+        for (int n = 0; n < current.playerCount(); n++) {
+            out.player(current, current.player(n), SnapshotWriter.ALL_FIELDS);
+        }
+        out.endSection();
+        out.beginSection(SnapshotWriter.Section.PROJECTILES);
+        for (int n = 0; n < current.projectileCount(); n++) {
+            out.projectile(current, current.projectile(n), true);
+        }
+        out.endSection();
+    }
+
+    private void writeDelta(MatchSnapshot current, SnapshotWriter out) {
+        // Both snapshots iterate in ascending id order, so matching is a merge join
+        out.beginSection(SnapshotWriter.Section.PLAYERS);
+        int b = 0;
+        for (int n = 0; n < current.playerCount(); n++) {
+            int ci = current.player(n);
+            int id = current.playerId(ci);
+            while (b < baseline.playerCount() && baseline.playerId(baseline.player(b)) < id) {
+                b++;
+            }
+            if (b < baseline.playerCount() && baseline.playerId(baseline.player(b)) == id) {
+                int fields = changedFields(baseline, baseline.player(b), current, ci);
+                if (fields != 0) {
+                    out.player(current, ci, fields);
+                }
+            } else {
+                out.player(current, ci, SnapshotWriter.ALL_FIELDS);
+            }
+        }
+        out.endSection();
+
+        out.beginSection(SnapshotWriter.Section.REMOVED_PLAYERS);
+        int c = 0;
+        for (int n = 0; n < baseline.playerCount(); n++) {
+            int id = baseline.playerId(baseline.player(n));
+            while (c < current.playerCount() && current.playerId(current.player(c)) < id) {
+                c++;
+            }
+            if (c >= current.playerCount() || current.playerId(current.player(c)) != id) {
+                out.removed(id);
+            }
+        }
+        out.endSection();
+
+        out.beginSection(SnapshotWriter.Section.PROJECTILES);
+        b = 0;
+        for (int n = 0; n < current.projectileCount(); n++) {
+            int ci = current.projectile(n);
+            int id = current.projectileId(ci);
+            while (b < baseline.projectileCount() && baseline.projectileId(baseline.projectile(b)) < id) {
+                b++;
+            }
+            if (b < baseline.projectileCount() && baseline.projectileId(baseline.projectile(b)) == id) {
+                int bi = baseline.projectile(b);
+                if (baseline.projectileX(bi) != current.projectileX(ci) || baseline.projectileY(bi) != current.projectileY(ci)) {
+                    out.projectile(current, ci, false);
+                }
+            } else {
+                out.projectile(current, ci, true);
+            }
+        }
+        out.endSection();
+
+        out.beginSection(SnapshotWriter.Section.REMOVED_PROJECTILES);
+        c = 0;
+        for (int n = 0; n < baseline.projectileCount(); n++) {
+            int id = baseline.projectileId(baseline.projectile(n));
+            while (c < current.projectileCount() && current.projectileId(current.projectile(c)) < id) {
+                c++;
+            }
+            if (c >= current.projectileCount() || current.projectileId(current.projectile(c)) != id) {
+                out.removed(id);
+            }
+        }
+        out.endSection();
+    }
+
+    private static int changedFields(MatchSnapshot before, int bi, MatchSnapshot after, int ai) {
+        int fields = 0;
+        if (!Objects.equals(before.username(bi), after.username(ai))) {
+            fields |= SnapshotWriter.FIELD_USERNAME;
+        }
+        if (before.playerX(bi) != after.playerX(ai)) {
+            fields |= SnapshotWriter.FIELD_X;
+        }
+        if (before.playerY(bi) != after.playerY(ai)) {
+            fields |= SnapshotWriter.FIELD_Y;
+        }
+        if (before.rotation(bi) != after.rotation(ai)) {
+            fields |= SnapshotWriter.FIELD_ROTATION;
+        }
+        if (before.health(bi) != after.health(ai)) {
+            fields |= SnapshotWriter.FIELD_HEALTH;
+        }
+        if (before.alive(bi) != after.alive(ai)) {
+            fields |= SnapshotWriter.FIELD_ALIVE;
+        }
+        if (before.weaponIndex(bi) != after.weaponIndex(ai)) {
+            fields |= SnapshotWriter.FIELD_WEAPON;
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,64 @@
+package com.gngm.engine;
+
+// Feeds one snapshot message to several formats in a single pass of the delta logic
+public class FanOutSnapshotWriter implements SnapshotWriter {
+
+    private SnapshotWriter[] targets = new SnapshotWriter[0];
+
+    public void setTargets(SnapshotWriter... targets) {
+        this.targets = targets;
+    }
+
+    public boolean isEmpty() {
+        return targets.length == 0;
+    }
+
+    @Override
+    public void begin(MessageType type, MatchSnapshot snapshot) {
+        for (SnapshotWriter target : targets) {
+            target.begin(type, snapshot);
+        }
+    }
+
+    @Override
+    public void beginSection(Section section) {
+        for (SnapshotWriter target : targets) {
+            target.beginSection(section);
+        }
+    }
+
+    @Override
+    public void player(MatchSnapshot snapshot, int i, int fields) {
+        for (SnapshotWriter target : targets) {
+            target.player(snapshot, i, fields);
+        }
+    }
+
+    @Override
+    public void projectile(MatchSnapshot snapshot, int i, boolean spawned) {
+        for (SnapshotWriter target : targets) {
+            target.projectile(snapshot, i, spawned);
+        }
+    }
+
+    @Override
+    public void removed(int id) {
+        for (SnapshotWriter target : targets) {
+            target.removed(id);
+        }
+    }
+
+    @Override
+    public void endSection() {
+        for (SnapshotWriter target : targets) {
+            target.endSection();
+        }
+    }
+
+    @Override
+    public void end() {
+        for (SnapshotWriter target : targets) {
+            target.end();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.gngm.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Append-only log of tick-stamped records, written through a memory mapping. The file
+// is mapped one region at a time and a record is a few puts into the mapping, so an
+// append makes no system call until a region fills up. Only one thread appends.
+// Nothing is synced to disk before close(); the OS writes dirty pages back on its own.
+//
+// Layout: magic, header length, header (opaque to the journal), then records of
+// [int length][long tick][payload]. A record's length is written last and a zero
+// length ends the log, so the zeroed tail of the last region, or a record cut short
+// by a crash, reads as the end.
+public class InputJournal implements Closeable {
+
+    private static final int MAGIC = 0x474e4a31;
+    private static final int RECORD_OVERHEAD = Integer.BYTES + Long.BYTES;
+
+    private final FileChannel channel;
+    private final int regionSize;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long records;
+    private boolean closed;
+
+    private InputJournal(FileChannel channel, int regionSize) {
+        this.channel = channel;
+        this.regionSize = regionSize;
+    }
+
+    // Creates the journal file and writes its header; FileAlreadyExistsException if the file exists
+    public static InputJournal create(Path file, byte[] header, int regionSize) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        InputJournal journal = new InputJournal(channel, Math.max(4096, regionSize));
+        try {
+            journal.ensure(2 * Integer.BYTES + header.length);
+            journal.region.putInt(MAGIC).putInt(header.length).put(header);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    // Appends the payload's remaining bytes as one record
+    public void append(long tick, ByteBuffer payload) throws IOException {
+        if (closed) {
+            return;
+        }
+        int length = payload.remaining();
+        ensure(RECORD_OVERHEAD + length + Integer.BYTES);
+        int start = region.position();
+        region.position(start + Integer.BYTES);
+        region.putLong(tick).put(payload);
+        region.putInt(start, length);
+        records++;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    // Bytes written so far, header included
+    public long size() {
+        return region != null ? regionStart + region.position() : 0;
+    }
+
+    // Syncs the file, every region written included, and trims it to what was written
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            region.force();
+            // fsync also covers the dirty pages of regions already unmapped
+            channel.force(false);
+            try {
+                channel.truncate(size() + Integer.BYTES);
+            } catch (IOException e) {
+                // Some platforms refuse while the region is still mapped; the zero tail reads as the end anyway
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Makes room for the next write, mapping a new region at the write position if needed.
+    // Leaves room for the zero length that ends the log. The mmap is the one system call
+    // on the append path, once per region (a megabyte by default, minutes of inputs); it
+    // only maps, no disk I/O happens until the pages are written back.
+    private void ensure(int bytes) throws IOException {
+        if (region != null && region.remaining() >= bytes) {
+            return;
+        }
+        long position = size();
+        region = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(regionSize, bytes));
+        regionStart = position;
+    }
+
+    public static Reader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Journal too large to replay: " + file);
+            }
+            return new Reader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file);
+        }
+    }
+
+    // Reads a journal front to back; the mapping stays valid after the file is closed
+    public static final class Reader {
+
+        private final ByteBuffer buffer;
+        private final byte[] header;
+        private long tick;
+        private ByteBuffer payload;
+
+        private Reader(ByteBuffer buffer, Path file) throws IOException {
+            this.buffer = buffer;
+            if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not an input journal: " + file);
+            }
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Corrupt journal header: " + file);
+            }
+            header = new byte[length];
+            buffer.get(header);
+        }
+
+        public byte[] header() {
+            return header;
+        }
+
+        // Moves to the next complete record; false at the end of the log
+        public boolean next() {
+            if (buffer.remaining() < RECORD_OVERHEAD) {
+                return false;
+            }
+            int length = buffer.getInt(buffer.position());
+            if (length <= 0 || length > buffer.remaining() - RECORD_OVERHEAD) {
+                return false;
+            }
+            buffer.position(buffer.position() + Integer.BYTES);
+            tick = buffer.getLong();
+            payload = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            return true;
+        }
+
+        public long tick() {
+            return tick;
+        }
+
+        public ByteBuffer payload() {
+            return payload;
+        }
+    }
+}
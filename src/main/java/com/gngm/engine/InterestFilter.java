@@ -0,0 +1,99 @@
+package com.gngm.engine;
+
+import java.util.Arrays;
+
+// Area-of-interest filtering: splits a full match snapshot into what one viewer can
+// see (entities within viewRadius of their player) and the players outside it.
+// index() buckets the snapshot once per tick, so each viewer costs one grid query
+// instead of a scan over the whole match. Not thread-safe; one per match stream.
+public class InterestFilter {
+
+    private final double viewRadius;
+    private final SpatialGrid playerGrid;
+    private final SpatialGrid projectileGrid;
+    private MatchSnapshot source;
+    private boolean[] visible = new boolean[16];
+
+    public InterestFilter(double width, double height, double viewRadius) {
+        this.viewRadius = viewRadius;
+        // Cells of half the radius keep a query to about 5x5 cells
+        double cellSize = Math.max(32, viewRadius / 2);
+        this.playerGrid = new SpatialGrid(width, height, cellSize);
+        this.projectileGrid = new SpatialGrid(width, height, cellSize);
+    }
+
+    public void index(MatchSnapshot snapshot) {
+        source = snapshot;
+        playerGrid.clear();
+        projectileGrid.clear();
+        for (int i = 0; i < snapshot.playerCount(); i++) {
+            playerGrid.insert(i, snapshot.playerX(i), snapshot.playerY(i));
+        }
+        for (int i = 0; i < snapshot.projectileCount(); i++) {
+            projectileGrid.insert(i, snapshot.projectileX(i), snapshot.projectileY(i));
+        }
+        if (visible.length < snapshot.playerCount()) {
+            visible = new boolean[snapshot.playerCount() * 2];
+        }
+    }
+
+    // Fills view with what viewerId can see and distant with every other player.
+    // A viewer without a player in the match (spectating, just left) sees everything.
+    public void filter(int viewerId, MatchSnapshot view, MatchSnapshot distant) {
+        MatchSnapshot snapshot = source;
+        view.reset(snapshot.getTick(), snapshot.isGameOver(), snapshot.getWinnerName());
+        distant.reset(snapshot.getTick(), snapshot.isGameOver(), snapshot.getWinnerName());
+        int viewer = findPlayer(snapshot, viewerId);
+        if (viewer < 0) {
+            view.copyFrom(snapshot);
+            return;
+        }
+        double x = snapshot.playerX(viewer);
+        double y = snapshot.playerY(viewer);
+
+        Arrays.fill(visible, 0, snapshot.playerCount(), false);
+        int players = playerGrid.query(x, y, viewRadius);
+        int[] results = playerGrid.results();
+        for (int n = 0; n < players; n++) {
+            visible[results[n]] = true;
+        }
+        // The viewer's own player is always in view, even at the query boundary
+        visible[viewer] = true;
+        for (int i = 0; i < snapshot.playerCount(); i++) {
+            MatchSnapshot target = visible[i] ? view : distant;
+            target.addPlayer(snapshot.playerId(i), snapshot.username(i), snapshot.playerX(i), snapshot.playerY(i),
+                snapshot.rotation(i), snapshot.health(i), snapshot.alive(i), snapshot.weaponIndex(i));
+        }
+
+        int projectiles = projectileGrid.query(x, y, viewRadius);
+        results = projectileGrid.results();
+        for (int n = 0; n < projectiles; n++) {
+            int i = results[n];
+            view.addProjectile(snapshot.projectileId(i), snapshot.projectileX(i), snapshot.projectileY(i),
+                snapshot.direction(i), snapshot.owner(i));
+        }
+    }
+
+    public double getViewRadius() {
+        return viewRadius;
+    }
+
+    // Binary search over the snapshot's id order; returns the storage index or -1
+    private static int findPlayer(MatchSnapshot snapshot, int id) {
+        int low = 0;
+        int high = snapshot.playerCount() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int i = snapshot.player(mid);
+            int midId = snapshot.playerId(i);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,180 @@
+package com.gngm.engine;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+// Streams snapshot messages as JSON into a reusable buffer. Keyframes keep the
+// shape clients already know ({players: {id: player}, projectiles: {id: projectile}})
+// plus type/tick; deltas carry only changed fields and the ids of removed entities.
+// Radar summaries have the keyframe shape with type "radar".
+// Also records how many bytes each section took, for bandwidth accounting.
+public class JsonSnapshotWriter implements SnapshotWriter {
+
+    private final JsonFactory jsonFactory;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+    private JsonGenerator generator;
+    private boolean keyframe;
+    private Section section;
+    private boolean sectionOpen;
+    private long sectionStart;
+    private final long[] sectionBytes = new long[Section.values().length];
+
+    public JsonSnapshotWriter(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    public void begin(MessageType type, MatchSnapshot snapshot) {
+        this.keyframe = type != MessageType.DELTA;
+        buffer.reset();
+        Arrays.fill(sectionBytes, 0);
+        try {
+            generator = jsonFactory.createGenerator(buffer);
+            generator.writeStartObject();
+            generator.writeStringField("type", type.name().toLowerCase());
+            generator.writeNumberField("tick", snapshot.getTick());
+            generator.writeBooleanField("gameOver", snapshot.isGameOver());
+            generator.writeStringField("winnerName", snapshot.getWinnerName());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void beginSection(Section section) {
+        this.section = section;
+        this.sectionOpen = false;
+        this.sectionStart = position();
+        // Keyframes always carry the entity maps, even when empty
+        if (keyframe) {
+            try {
+                openSection();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void player(MatchSnapshot snapshot, int i, int fields) {
+        try {
+            openSection();
+            generator.writeFieldName(Integer.toString(snapshot.playerId(i)));
+            generator.writeStartObject();
+            generator.writeNumberField("id", snapshot.playerId(i));
+            if ((fields & FIELD_USERNAME) != 0) {
+                generator.writeStringField("username", snapshot.username(i));
+            }
+            if ((fields & FIELD_X) != 0) {
+                generator.writeNumberField("x", snapshot.playerX(i));
+            }
+            if ((fields & FIELD_Y) != 0) {
+                generator.writeNumberField("y", snapshot.playerY(i));
+            }
+            if ((fields & FIELD_ROTATION) != 0) {
+                generator.writeNumberField("rotation", snapshot.rotation(i));
+            }
+            if ((fields & FIELD_HEALTH) != 0) {
+                generator.writeNumberField("health", snapshot.health(i));
+            }
+            if ((fields & FIELD_ALIVE) != 0) {
+                generator.writeBooleanField("alive", snapshot.alive(i));
+            }
+            if ((fields & FIELD_WEAPON) != 0) {
+                generator.writeNumberField("currentWeaponIndex", snapshot.weaponIndex(i));
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void projectile(MatchSnapshot snapshot, int i, boolean spawned) {
+        try {
+            openSection();
+            generator.writeFieldName(Integer.toString(snapshot.projectileId(i)));
+            generator.writeStartObject();
+            if (spawned) {
+                generator.writeNumberField("id", snapshot.projectileId(i));
+                generator.writeNumberField("playerId", snapshot.owner(i));
+                generator.writeNumberField("direction", snapshot.direction(i));
+            }
+            generator.writeNumberField("x", snapshot.projectileX(i));
+            generator.writeNumberField("y", snapshot.projectileY(i));
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void removed(int id) {
+        try {
+            openSection();
+            generator.writeNumber(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void endSection() {
+        try {
+            if (sectionOpen) {
+                if (section == Section.PLAYERS || section == Section.PROJECTILES) {
+                    generator.writeEndObject();
+                } else {
+                    generator.writeEndArray();
+                }
+            }
+            sectionBytes[section.ordinal()] = position() - sectionStart;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void end() {
+        try {
+            generator.writeEndObject();
+            generator.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return buffer.size();
+    }
+
+    public byte[] toByteArray() {
+        return buffer.toByteArray();
+    }
+
+    public long sectionBytes(Section section) {
+        return sectionBytes[section.ordinal()];
+    }
+
+    private void openSection() throws IOException {
+        if (sectionOpen) {
+            return;
+        }
+        sectionOpen = true;
+        switch (section) {
+            case PLAYERS -> generator.writeObjectFieldStart("players");
+            case PROJECTILES -> generator.writeObjectFieldStart("projectiles");
+            case REMOVED_PLAYERS -> generator.writeArrayFieldStart("removedPlayers");
+            case REMOVED_PROJECTILES -> generator.writeArrayFieldStart("removedProjectiles");
+        }
+    }
+
+    private long position() {
+        return buffer.size() + (generator != null ? generator.getOutputBuffered() : 0);
+    }
+}
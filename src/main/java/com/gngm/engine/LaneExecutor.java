@@ -0,0 +1,161 @@
+package com.gngm.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs tasks on a fixed set of single-threaded lanes picked by key: tasks with the same
+// key run one at a time in submission order, different keys spread over all lanes. Each
+// lane has a bounded queue. Sheddable tasks (offer) only get the first queueCapacity
+// slots and are dropped beyond that, so a flood on one key can't grow memory or hold up
+// the submitter; the reserved slots above them are kept for tasks that must run
+// (execute), which wait a little for room before giving up.
+public class LaneExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LaneExecutor.class);
+
+    private final String name;
+    private final Lane[] lanes;
+    private final int sheddableCapacity;
+
+    public LaneExecutor(String name, int laneCount, int queueCapacity, int reservedCapacity) {
+        if (laneCount <= 0) {
+            laneCount = Runtime.getRuntime().availableProcessors();
+        }
+        this.name = name;
+        this.sheddableCapacity = Math.max(1, queueCapacity);
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i, sheddableCapacity + Math.max(1, reservedCapacity));
+        }
+    }
+
+    public void start() {
+        for (Lane lane : lanes) {
+            lane.thread.start();
+        }
+        logger.info("Started {} {} lanes, {} sheddable and {} reserved queue slots each", lanes.length, name,
+            sheddableCapacity, lanes[0].queue.remainingCapacity() - sheddableCapacity);
+    }
+
+    public void stop() {
+        for (Lane lane : lanes) {
+            lane.thread.interrupt();
+        }
+    }
+
+    // Queues a task that may be dropped; false (and counted as shed) if the key's lane
+    // already has queueCapacity tasks waiting. Racing submitters can overshoot that by a
+    // few slots, which the reserve absorbs.
+    public boolean offer(long key, Runnable task) {
+        Lane lane = lanes[laneOf(key)];
+        if (lane.queue.size() < sheddableCapacity && lane.queue.offer(task)) {
+            return true;
+        }
+        lane.shed.incrementAndGet();
+        return false;
+    }
+
+    // Queues a task that must run, using the reserved slots too and waiting up to the
+    // timeout for room; false (and counted as rejected) if the lane stayed full
+    public boolean execute(long key, Runnable task, long timeoutMillis) {
+        Lane lane = lanes[laneOf(key)];
+        try {
+            if (lane.queue.offer(task, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lane.rejected.incrementAndGet();
+        return false;
+    }
+
+    public int laneOf(long key) {
+        // Spread sequential ids (match 1, 2, 3...) evenly even when the lane count shares factors with them
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(h ^ (h >>> 32), (long) lanes.length);
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public int getQueued(int lane) {
+        return lanes[lane].queue.size();
+    }
+
+    public long getExecuted(int lane) {
+        return lanes[lane].executed;
+    }
+
+    public long getShed(int lane) {
+        return lanes[lane].shed.get();
+    }
+
+    public long getRejected(int lane) {
+        return lanes[lane].rejected.get();
+    }
+
+    public List<LaneStats> getLaneStats() {
+        List<LaneStats> stats = new ArrayList<>(lanes.length);
+        for (Lane lane : lanes) {
+            stats.add(new LaneStats(lane.index, lane.queue.size(), lane.executed, lane.shed.get(), lane.rejected.get(),
+                lane.maxTaskNanos));
+        }
+        return stats;
+    }
+
+    public record LaneStats(int lane, int queued, long executed, long shed, long rejected, long maxTaskNanos) {
+    }
+
+    private class Lane implements Runnable {
+        final int index;
+        final BlockingQueue<Runnable> queue;
+        final Thread thread;
+
+        // Written only by the lane thread, read by stats callers
+        volatile long executed;
+        volatile long maxTaskNanos;
+        // Counted by submitters
+        final AtomicLong shed = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+
+        Lane(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+            this.thread = new Thread(this, name + "-lane-" + index);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                Runnable task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    // One bad message must not take the lane, and every key on it, down
+                    logger.error("Task failed on {} lane {}", name, index, e);
+                }
+                long cost = System.nanoTime() - start;
+                if (cost > maxTaskNanos) {
+                    maxTaskNanos = cost;
+                }
+                executed++;
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.gngm.engine;
+
+import java.util.Arrays;
+
+// Point-in-time copy of the replicated state of one match. Entities are stored in
+// parallel arrays and exposed in ascending id order, so two snapshots can be
+// diffed with a single merge pass. Instances are reused: reset() then add*().
+public class MatchSnapshot {
+
+    private long tick;
+    private boolean gameOver;
+    private String winnerName;
+
+    private int playerCount;
+    private int[] playerIds = new int[16];
+    private String[] usernames = new String[16];
+    private double[] playerX = new double[16];
+    private double[] playerY = new double[16];
+    private double[] rotations = new double[16];
+    private int[] health = new int[16];
+    private boolean[] alive = new boolean[16];
+    private int[] weaponIndex = new int[16];
+    private int[] playerOrder = new int[16];
+
+    private int projectileCount;
+    private int[] projectileIds = new int[64];
+    private double[] projectileX = new double[64];
+    private double[] projectileY = new double[64];
+    private double[] directions = new double[64];
+    private int[] owners = new int[64];
+    private int[] projectileOrder = new int[64];
+
+    private boolean sorted = true;
+
+    public void reset(long tick, boolean gameOver, String winnerName) {
+        this.tick = tick;
+        this.gameOver = gameOver;
+        this.winnerName = winnerName;
+        Arrays.fill(usernames, 0, playerCount, null);
+        playerCount = 0;
+        projectileCount = 0;
+        sorted = true;
+    }
+
+    public void addPlayer(int id, String username, double x, double y, double rotation, int hp,
+                          boolean isAlive, int weapon) {
+        if (playerCount == playerIds.length) {
+            growPlayers(playerCount * 2);
+        }
+        int i = playerCount++;
+        playerIds[i] = id;
+        usernames[i] = username;
+        playerX[i] = x;
+        playerY[i] = y;
+        rotations[i] = rotation;
+        health[i] = hp;
+        alive[i] = isAlive;
+        weaponIndex[i] = weapon;
+        sorted = false;
+    }
+
+    public void addProjectile(int id, double x, double y, double direction, int owner) {
+        if (projectileCount == projectileIds.length) {
+            growProjectiles(projectileCount * 2);
+        }
+        int i = projectileCount++;
+        projectileIds[i] = id;
+        projectileX[i] = x;
+        projectileY[i] = y;
+        directions[i] = direction;
+        owners[i] = owner;
+        sorted = false;
+    }
+
+    // Makes this snapshot an exact copy of another, reusing this instance's arrays
+    public void copyFrom(MatchSnapshot other) {
+        other.ensureSorted();
+        reset(other.tick, other.gameOver, other.winnerName);
+        for (int n = 0; n < other.playerCount; n++) {
+            int i = other.playerOrder[n];
+            addPlayer(other.playerIds[i], other.usernames[i], other.playerX[i], other.playerY[i],
+                other.rotations[i], other.health[i], other.alive[i], other.weaponIndex[i]);
+        }
+        for (int n = 0; n < other.projectileCount; n++) {
+            int i = other.projectileOrder[n];
+            addProjectile(other.projectileIds[i], other.projectileX[i], other.projectileY[i],
+                other.directions[i], other.owners[i]);
+        }
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public String getWinnerName() {
+        return winnerName;
+    }
+
+    public int playerCount() {
+        return playerCount;
+    }
+
+    public int projectileCount() {
+        return projectileCount;
+    }
+
+    // Storage index of the n-th player in id order
+    public int player(int n) {
+        ensureSorted();
+        return playerOrder[n];
+    }
+
+    // Storage index of the n-th projectile in id order
+    public int projectile(int n) {
+        ensureSorted();
+        return projectileOrder[n];
+    }
+
+    public int playerId(int i) {
+        return playerIds[i];
+    }
+
+    public String username(int i) {
+        return usernames[i];
+    }
+
+    public double playerX(int i) {
+        return playerX[i];
+    }
+
+    public double playerY(int i) {
+        return playerY[i];
+    }
+
+    public double rotation(int i) {
+        return rotations[i];
+    }
+
+    public int health(int i) {
+        return health[i];
+    }
+
+    public boolean alive(int i) {
+        return alive[i];
+    }
+
+    public int weaponIndex(int i) {
+        return weaponIndex[i];
+    }
+
+    public int projectileId(int i) {
+        return projectileIds[i];
+    }
+
+    public double projectileX(int i) {
+        return projectileX[i];
+    }
+
+    public double projectileY(int i) {
+        return projectileY[i];
+    }
+
+    public double direction(int i) {
+        return directions[i];
+    }
+
+    public int owner(int i) {
+        return owners[i];
+    }
+
+    private void ensureSorted() {
+        if (!sorted) {
+            sortOrder(playerOrder, playerIds, playerCount);
+            sortOrder(projectileOrder, projectileIds, projectileCount);
+            sorted = true;
+        }
+    }
+
+    // Insertion sort of storage indices by id; entities arrive nearly sorted, so this is close to linear
+    private static void sortOrder(int[] order, int[] ids, int count) {
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        for (int i = 1; i < count; i++) {
+            int index = order[i];
+            int id = ids[index];
+            int j = i - 1;
+            while (j >= 0 && ids[order[j]] > id) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+
+    private void growPlayers(int capacity) {
+        playerIds = Arrays.copyOf(playerIds, capacity);
+        usernames = Arrays.copyOf(usernames, capacity);
+        playerX = Arrays.copyOf(playerX, capacity);
+        playerY = Arrays.copyOf(playerY, capacity);
+        rotations = Arrays.copyOf(rotations, capacity);
+        health = Arrays.copyOf(health, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+        weaponIndex = Arrays.copyOf(weaponIndex, capacity);
+        playerOrder = Arrays.copyOf(playerOrder, capacity);
+    }
+
+    private void growProjectiles(int capacity) {
+        projectileIds = Arrays.copyOf(projectileIds, capacity);
+        projectileX = Arrays.copyOf(projectileX, capacity);
+        projectileY = Arrays.copyOf(projectileY, capacity);
+        directions = Arrays.copyOf(directions, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+        projectileOrder = Arrays.copyOf(projectileOrder, capacity);
+    }
+}
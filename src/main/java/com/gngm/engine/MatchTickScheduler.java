@@ -0,0 +1,211 @@
+package com.gngm.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Runs match ticks on a fixed set of single-threaded workers. Every match is pinned
+// to one worker for its whole life, so its ticks never overlap or reorder, while
+// different matches spread across all cores.
+public class MatchTickScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchTickScheduler.class);
+
+    // Cost assumed for a match that has not been ticked yet, so a burst of new
+    // matches does not all land on the same worker
+    private static final long NEW_MATCH_COST_NANOS = 50_000;
+    private static final double EWMA_ALPHA = 0.1;
+
+    // Returns false when the match is finished and should be unscheduled
+    @FunctionalInterface
+    public interface MatchTicker {
+        boolean tick(long matchId);
+    }
+
+    // Told about every worker tick and match tick, e.g. to feed metrics; called on the worker thread
+    public interface TickObserver {
+        void workerTick(long lagNanos, long durationNanos);
+
+        void matchTick(long matchId, long costNanos);
+    }
+
+    private final Worker[] workers;
+    private final long periodNanos;
+    private final Map<Long, Worker> assignments = new ConcurrentHashMap<>();
+    private volatile MatchTicker ticker;
+    private volatile TickObserver observer;
+
+    public MatchTickScheduler(int workerCount, long periodNanos) {
+        if (workerCount <= 0) {
+            workerCount = Runtime.getRuntime().availableProcessors();
+        }
+        this.periodNanos = periodNanos;
+        this.workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(i);
+        }
+    }
+
+    public void start(MatchTicker ticker) {
+        this.ticker = ticker;
+        for (Worker worker : workers) {
+            worker.start();
+        }
+        logger.info("Started {} tick workers at {} us period", workers.length, periodNanos / 1000);
+    }
+
+    public void setObserver(TickObserver observer) {
+        this.observer = observer;
+    }
+
+    public void stop() {
+        for (Worker worker : workers) {
+            worker.executor.shutdownNow();
+        }
+    }
+
+    // Pins the match to the least loaded worker; a no-op if it is already scheduled
+    public int assign(long matchId) {
+        Worker worker = assignments.computeIfAbsent(matchId, id -> {
+            Worker best = workers[0];
+            for (Worker candidate : workers) {
+                if (candidate.load() < best.load()) {
+                    best = candidate;
+                }
+            }
+            best.matches.put(id, new MatchSlot());
+            return best;
+        });
+        return worker.index;
+    }
+
+    public void release(long matchId) {
+        Worker worker = assignments.remove(matchId);
+        if (worker != null) {
+            worker.matches.remove(matchId);
+        }
+    }
+
+    public boolean isAssigned(long matchId) {
+        return assignments.containsKey(matchId);
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    public List<WorkerStats> getWorkerStats() {
+        List<WorkerStats> stats = new ArrayList<>(workers.length);
+        for (Worker worker : workers) {
+            stats.add(worker.stats());
+        }
+        return stats;
+    }
+
+    public record WorkerStats(int worker, int matches, long ticks, long lastTickNanos, long avgTickNanos,
+                              long lastLagNanos, long maxLagNanos, long lateTicks) {
+    }
+
+    private static class MatchSlot {
+        volatile long avgCostNanos = NEW_MATCH_COST_NANOS;
+    }
+
+    private class Worker {
+        final int index;
+        final ScheduledExecutorService executor;
+        final Map<Long, MatchSlot> matches = new ConcurrentHashMap<>();
+
+        // Written only by the worker thread, read by stats callers
+        volatile long ticks;
+        volatile long lastTickNanos;
+        volatile long avgTickNanos;
+        volatile long lastLagNanos;
+        volatile long maxLagNanos;
+        volatile long lateTicks;
+        private long expectedStart;
+
+        Worker(int index) {
+            this.index = index;
+            this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "tick-worker-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        void start() {
+            expectedStart = System.nanoTime();
+            executor.scheduleAtFixedRate(this::runTick, 0, periodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        long load() {
+            long load = 0;
+            for (MatchSlot slot : matches.values()) {
+                load += slot.avgCostNanos;
+            }
+            return load;
+        }
+
+        private void runTick() {
+            long start = System.nanoTime();
+            long lag = Math.max(0, start - expectedStart);
+            // Re-anchor after a long stall instead of reporting ever-growing lag
+            expectedStart = lag > periodNanos * 10 ? start + periodNanos : expectedStart + periodNanos;
+            lastLagNanos = lag;
+            if (lag > maxLagNanos) {
+                maxLagNanos = lag;
+            }
+            if (lag > periodNanos) {
+                lateTicks++;
+            }
+
+            MatchTicker current = ticker;
+            TickObserver watcher = observer;
+            for (Map.Entry<Long, MatchSlot> entry : matches.entrySet()) {
+                long matchId = entry.getKey();
+                long matchStart = System.nanoTime();
+                boolean keep;
+                try {
+                    keep = current.tick(matchId);
+                } catch (Exception e) {
+                    // An exception escaping would cancel the whole worker
+                    logger.error("Tick failed for match {}", matchId, e);
+                    keep = true;
+                }
+                MatchSlot slot = entry.getValue();
+                long cost = System.nanoTime() - matchStart;
+                slot.avgCostNanos = (long) (slot.avgCostNanos + EWMA_ALPHA * (cost - slot.avgCostNanos));
+                if (watcher != null) {
+                    watcher.matchTick(matchId, cost);
+                }
+                if (!keep) {
+                    release(matchId);
+                }
+            }
+
+            long duration = System.nanoTime() - start;
+            lastTickNanos = duration;
+            avgTickNanos = (long) (avgTickNanos + EWMA_ALPHA * (duration - avgTickNanos));
+            ticks++;
+            if (watcher != null) {
+                watcher.workerTick(lag, duration);
+            }
+        }
+
+        WorkerStats stats() {
+            return new WorkerStats(index, matches.size(), ticks, lastTickNanos, avgTickNanos,
+                lastLagNanos, maxLagNanos, lateTicks);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.gngm.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Walkability grid of one wall layout for agents of a given radius: a cell is walkable
+// when an agent centered on it clears every wall and the map edge. Paths come from flow
+// fields: one Dijkstra pass from a goal cell gives every cell its next step toward it,
+// so any number of agents share a field instead of searching each. Goals are the layout's
+// waypoints, a fixed lattice of walkable cells, and every waypoint's field is built with
+// the grid, so agents never search while a match ticks. Immutable; safe to share between threads.
+public final class NavGrid {
+
+    // 8-connected moves; diagonals only where both adjacent sides are walkable
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DY = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final float[] COST = {1, 1, 1, 1, (float) Math.sqrt(2), (float) Math.sqrt(2),
+        (float) Math.sqrt(2), (float) Math.sqrt(2)};
+
+    private final double cellSize;
+    private final int cols;
+    private final int rows;
+    private final boolean[] walkable;
+    // Ascending cell order; fields[i] leads to waypoints[i]
+    private final int[] waypoints;
+    private final FlowField[] fields;
+
+    private NavGrid(double cellSize, int cols, int rows, boolean[] walkable, int[] waypoints) {
+        this.cellSize = cellSize;
+        this.cols = cols;
+        this.rows = rows;
+        this.walkable = walkable;
+        this.waypoints = waypoints;
+        this.fields = new FlowField[waypoints.length];
+        OpenSet open = new OpenSet(cols * rows);
+        for (int i = 0; i < waypoints.length; i++) {
+            fields[i] = buildField(waypoints[i], open);
+        }
+    }
+
+    // waypointSpacing sets the lattice of goal cells agents can wander between; one flow
+    // field per waypoint is built here too, so denser lattices cost more up front
+    public static NavGrid build(WallGeometry walls, double width, double height, double cellSize,
+                                double radius, double waypointSpacing) {
+        int cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        int rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        boolean[] walkable = new boolean[cols * rows];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                double x = (col + 0.5) * cellSize;
+                double y = (row + 0.5) * cellSize;
+                walkable[row * cols + col] = x >= radius && x <= width - radius && y >= radius && y <= height - radius
+                    && !walls.intersectsCircle(x, y, radius);
+            }
+        }
+        List<Integer> lattice = new ArrayList<>();
+        int stride = Math.max(1, (int) Math.round(waypointSpacing / cellSize));
+        for (int row = stride / 2; row < rows; row += stride) {
+            for (int col = stride / 2; col < cols; col += stride) {
+                if (walkable[row * cols + col]) {
+                    lattice.add(row * cols + col);
+                }
+            }
+        }
+        return new NavGrid(cellSize, cols, rows, walkable, lattice.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // Cell containing the point, clamped to the grid
+    public int cellAt(double x, double y) {
+        int col = Math.max(0, Math.min(cols - 1, (int) (x / cellSize)));
+        int row = Math.max(0, Math.min(rows - 1, (int) (y / cellSize)));
+        return row * cols + col;
+    }
+
+    public double centerX(int cell) {
+        return (cell % cols + 0.5) * cellSize;
+    }
+
+    public double centerY(int cell) {
+        return (cell / cols + 0.5) * cellSize;
+    }
+
+    public boolean isWalkable(int cell) {
+        return walkable[cell];
+    }
+
+    public int waypointCount() {
+        return waypoints.length;
+    }
+
+    public int waypoint(int i) {
+        return waypoints[i];
+    }
+
+    // The waypoint closest to the point, or -1 if the layout has none
+    public int nearestWaypoint(double x, double y) {
+        int best = -1;
+        double bestDistanceSq = Double.MAX_VALUE;
+        for (int cell : waypoints) {
+            double dx = centerX(cell) - x;
+            double dy = centerY(cell) - y;
+            if (dx * dx + dy * dy < bestDistanceSq) {
+                bestDistanceSq = dx * dx + dy * dy;
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    // Flow field toward a waypoint cell
+    public FlowField flowTo(int goal) {
+        int i = Arrays.binarySearch(waypoints, goal);
+        if (i < 0) {
+            throw new IllegalArgumentException("Cell " + goal + " is not a waypoint");
+        }
+        return fields[i];
+    }
+
+    // True if an agent can walk straight from one point to the other: every cell the
+    // line crosses is walkable (grid traversal, no wall tests)
+    public boolean clearPath(double x0, double y0, double x1, double y1) {
+        int col = clampCol(x0);
+        int row = clampRow(y0);
+        int endCol = clampCol(x1);
+        int endRow = clampRow(y1);
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        int stepCol = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+        double tDeltaX = dx != 0 ? cellSize / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = dy != 0 ? cellSize / Math.abs(dy) : Double.POSITIVE_INFINITY;
+        double tMaxX = dx > 0 ? ((col + 1) * cellSize - x0) / dx : dx < 0 ? (col * cellSize - x0) / dx : Double.POSITIVE_INFINITY;
+        double tMaxY = dy > 0 ? ((row + 1) * cellSize - y0) / dy : dy < 0 ? (row * cellSize - y0) / dy : Double.POSITIVE_INFINITY;
+        while (true) {
+            if (!walkable[row * cols + col]) {
+                return false;
+            }
+            if (col == endCol && row == endRow) {
+                return true;
+            }
+            if (tMaxX < tMaxY) {
+                col += stepCol;
+                tMaxX += tDeltaX;
+            } else {
+                row += stepRow;
+                tMaxY += tDeltaY;
+            }
+            if (col < 0 || col >= cols || row < 0 || row >= rows) {
+                return true;
+            }
+        }
+    }
+
+    private int clampCol(double x) {
+        return Math.max(0, Math.min(cols - 1, (int) (x / cellSize)));
+    }
+
+    private int clampRow(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) (y / cellSize)));
+    }
+
+    // Dijkstra from the goal over walkable cells. Blocked cells next to walkable ones then
+    // point at their cheapest walkable neighbour, so an agent pressed into a wall steps out.
+    private FlowField buildField(int goal, OpenSet open) {
+        int cells = cols * rows;
+        float[] distance = new float[cells];
+        int[] next = new int[cells];
+        Arrays.fill(distance, Float.POSITIVE_INFINITY);
+        Arrays.fill(next, -1);
+        // Entries are (distance bits << 32 | cell); non-negative floats order like their bits
+        open.clear();
+        if (walkable[goal]) {
+            distance[goal] = 0;
+            open.add((long) goal);
+        }
+        while (!open.isEmpty()) {
+            long entry = open.poll();
+            int cell = (int) entry;
+            float d = Float.intBitsToFloat((int) (entry >>> 32));
+            if (d > distance[cell]) {
+                continue;
+            }
+            int col = cell % cols;
+            int row = cell / cols;
+            for (int k = 0; k < DX.length; k++) {
+                int neighbour = step(col, row, k);
+                if (neighbour < 0 || !walkable[neighbour]) {
+                    continue;
+                }
+                float candidate = d + COST[k];
+                if (candidate < distance[neighbour]) {
+                    distance[neighbour] = candidate;
+                    // The neighbour moves back along this edge
+                    next[neighbour] = cell;
+                    open.add(((long) Float.floatToIntBits(candidate) << 32) | neighbour);
+                }
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (walkable[cell]) {
+                continue;
+            }
+            float best = Float.POSITIVE_INFINITY;
+            for (int k = 0; k < DX.length; k++) {
+                int neighbour = step(cell % cols, cell / cols, k);
+                if (neighbour >= 0 && walkable[neighbour] && distance[neighbour] < best) {
+                    best = distance[neighbour];
+                    next[cell] = neighbour;
+                }
+            }
+        }
+        return new FlowField(goal, distance, next);
+    }
+
+    // Cell one move in direction k, or -1 if that leaves the grid or cuts a blocked corner
+    private int step(int col, int row, int k) {
+        int c = col + DX[k];
+        int r = row + DY[k];
+        if (c < 0 || c >= cols || r < 0 || r >= rows) {
+            return -1;
+        }
+        if (k >= 4 && (!walkable[row * cols + c] || !walkable[r * cols + col])) {
+            return -1;
+        }
+        return r * cols + c;
+    }
+
+    // Binary min-heap of Dijkstra entries, unboxed and reused across fields
+    private static final class OpenSet {
+        private long[] heap;
+        private int size;
+
+        OpenSet(int capacity) {
+            heap = new long[Math.max(16, capacity)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(long entry) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= entry) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = entry;
+        }
+
+        long poll() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+
+    // Next cell and remaining path length toward one goal, for every cell
+    public static final class FlowField {
+        private final int goal;
+        private final float[] distance;
+        private final int[] next;
+
+        private FlowField(int goal, float[] distance, int[] next) {
+            this.goal = goal;
+            this.distance = distance;
+            this.next = next;
+        }
+
+        public int goal() {
+            return goal;
+        }
+
+        // Next cell on the way to the goal; -1 at the goal or where it can't be reached
+        public int next(int cell) {
+            return next[cell];
+        }
+
+        // Path length in cells; infinite where the goal can't be reached
+        public float distance(int cell) {
+            return distance[cell];
+        }
+    }
+}
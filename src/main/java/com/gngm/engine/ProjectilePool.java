@@ -0,0 +1,157 @@
+package com.gngm.engine;
+
+import java.util.Arrays;
+
+// Live projectiles of one match stored as parallel primitive arrays. Removal swaps
+// the last projectile into the freed slot, so slots stay dense and iteration is a
+// plain indexed loop; iterate from the end when removing while iterating.
+// Ids are small per-match integers, stable for a projectile's lifetime. Each projectile
+// also remembers where its last move started, for swept hit tests along the move.
+public class ProjectilePool {
+
+    private double[] x;
+    private double[] y;
+    // Position before the last move
+    private double[] prevX;
+    private double[] prevY;
+    // Velocity in pixels per second
+    private double[] dx;
+    private double[] dy;
+    private int[] owner;
+    private int[] id;
+    private long[] spawnTick;
+    // Cut short by a wall or the map edge; removed once its last move was checked against players
+    private boolean[] stopped;
+    private int size;
+    private int nextId;
+
+    public ProjectilePool(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        x = new double[capacity];
+        y = new double[capacity];
+        prevX = new double[capacity];
+        prevY = new double[capacity];
+        dx = new double[capacity];
+        dy = new double[capacity];
+        owner = new int[capacity];
+        id = new int[capacity];
+        spawnTick = new long[capacity];
+        stopped = new boolean[capacity];
+    }
+
+    // Adds a projectile and returns its id
+    public int spawn(double px, double py, double direction, double speed, int ownerId, long tick) {
+        if (size == x.length) {
+            grow();
+        }
+        int slot = size++;
+        x[slot] = px;
+        y[slot] = py;
+        prevX[slot] = px;
+        prevY[slot] = py;
+        dx[slot] = Math.cos(direction) * speed;
+        dy[slot] = Math.sin(direction) * speed;
+        owner[slot] = ownerId;
+        id[slot] = nextId++;
+        spawnTick[slot] = tick;
+        stopped[slot] = false;
+        return id[slot];
+    }
+
+    // Moves the projectile in slot i by its velocity over the given time
+    public void move(int i, double seconds) {
+        prevX[i] = x[i];
+        prevY[i] = y[i];
+        x[i] += dx[i] * seconds;
+        y[i] += dy[i] * seconds;
+    }
+
+    // Cuts the last move short at fraction t of it and marks the projectile as stopped
+    public void stop(int i, double t) {
+        x[i] = prevX[i] + (x[i] - prevX[i]) * t;
+        y[i] = prevY[i] + (y[i] - prevY[i]) * t;
+        stopped[i] = true;
+    }
+
+    public void remove(int i) {
+        int last = --size;
+        if (i != last) {
+            x[i] = x[last];
+            y[i] = y[last];
+            prevX[i] = prevX[last];
+            prevY[i] = prevY[last];
+            dx[i] = dx[last];
+            dy[i] = dy[last];
+            owner[i] = owner[last];
+            id[i] = id[last];
+            spawnTick[i] = spawnTick[last];
+            stopped[i] = stopped[last];
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double x(int i) {
+        return x[i];
+    }
+
+    public double y(int i) {
+        return y[i];
+    }
+
+    public double prevX(int i) {
+        return prevX[i];
+    }
+
+    public double prevY(int i) {
+        return prevY[i];
+    }
+
+    public boolean stopped(int i) {
+        return stopped[i];
+    }
+
+    public double dx(int i) {
+        return dx[i];
+    }
+
+    public double dy(int i) {
+        return dy[i];
+    }
+
+    public double direction(int i) {
+        return Math.atan2(dy[i], dx[i]);
+    }
+
+    public int owner(int i) {
+        return owner[i];
+    }
+
+    public int id(int i) {
+        return id[i];
+    }
+
+    public long spawnTick(int i) {
+        return spawnTick[i];
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        dx = Arrays.copyOf(dx, capacity);
+        dy = Arrays.copyOf(dy, capacity);
+        owner = Arrays.copyOf(owner, capacity);
+        id = Arrays.copyOf(id, capacity);
+        spawnTick = Arrays.copyOf(spawnTick, capacity);
+        stopped = Arrays.copyOf(stopped, capacity);
+    }
+}
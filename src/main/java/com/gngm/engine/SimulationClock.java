@@ -0,0 +1,84 @@
+package com.gngm.engine;
+
+import java.util.concurrent.TimeUnit;
+
+// Fixed-timestep clock for one match. Real elapsed time is accumulated and consumed
+// in whole steps, so gameplay speed does not depend on how regularly ticks arrive.
+// Only the match's tick worker advances it; the counters are volatile for readers.
+public class SimulationClock {
+
+    private final long stepNanos;
+    private final int maxStepsPerTick;
+
+    private long lastNanos;
+    private long accumulatorNanos;
+    private boolean started;
+
+    private volatile long tick;
+    private volatile long overruns;
+    private volatile long skippedSteps;
+
+    public SimulationClock(int tickRateHz, int maxStepsPerTick) {
+        this.stepNanos = TimeUnit.SECONDS.toNanos(1) / tickRateHz;
+        this.maxStepsPerTick = Math.max(1, maxStepsPerTick);
+    }
+
+    // Returns how many fixed steps the caller should simulate now. Late ticks catch
+    // up by up to maxStepsPerTick steps; anything beyond that is dropped and counted.
+    public int advance(long nowNanos) {
+        if (!started) {
+            started = true;
+            lastNanos = nowNanos - stepNanos;
+        }
+        accumulatorNanos += Math.max(0, nowNanos - lastNanos);
+        lastNanos = nowNanos;
+
+        long due = accumulatorNanos / stepNanos;
+        accumulatorNanos -= due * stepNanos;
+        if (due > 1) {
+            overruns++;
+        }
+        if (due > maxStepsPerTick) {
+            skippedSteps += due - maxStepsPerTick;
+            return maxStepsPerTick;
+        }
+        return (int) due;
+    }
+
+    // Marks one simulated step as done
+    public void completeStep() {
+        tick++;
+    }
+
+    // Forgets accumulated time, e.g. after the match was paused
+    public void resync(long nowNanos) {
+        lastNanos = nowNanos;
+        accumulatorNanos = 0;
+        started = true;
+    }
+
+    public double stepSeconds() {
+        return stepNanos / 1_000_000_000.0;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    // Simulated time since the match started
+    public long simTimeMillis() {
+        return tick * stepNanos / 1_000_000;
+    }
+
+    public long getOverruns() {
+        return overruns;
+    }
+
+    public long getSkippedSteps() {
+        return skippedSteps;
+    }
+}
@@ -0,0 +1,39 @@
+package com.gngm.engine;
+
+// Output format for snapshot messages. DeltaTracker decides what goes into a
+// message and drives a writer through it in this order:
+// begin, then each section (begin/entries/end), then end.
+public interface SnapshotWriter {
+
+    enum Section { PLAYERS, REMOVED_PLAYERS, PROJECTILES, REMOVED_PROJECTILES }
+
+    // Keyframes and radar summaries are complete (players and projectiles sections only);
+    // deltas carry all four sections against the previous message of their stream
+    enum MessageType { KEYFRAME, DELTA, RADAR }
+
+    // Player fields, as bits of the mask passed to player()
+    int FIELD_USERNAME = 1;
+    int FIELD_X = 1 << 1;
+    int FIELD_Y = 1 << 2;
+    int FIELD_ROTATION = 1 << 3;
+    int FIELD_HEALTH = 1 << 4;
+    int FIELD_ALIVE = 1 << 5;
+    int FIELD_WEAPON = 1 << 6;
+    int ALL_FIELDS = (1 << 7) - 1;
+
+    void begin(MessageType type, MatchSnapshot snapshot);
+
+    void beginSection(Section section);
+
+    // Player at storage index i; only the fields in the mask changed since the baseline
+    void player(MatchSnapshot snapshot, int i, int fields);
+
+    // Projectile at storage index i; spawned ones need their full state, others only position
+    void projectile(MatchSnapshot snapshot, int i, boolean spawned);
+
+    void removed(int id);
+
+    void endSection();
+
+    void end();
+}
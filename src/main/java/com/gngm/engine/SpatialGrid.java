@@ -0,0 +1,98 @@
+package com.gngm.engine;
+
+import java.util.Arrays;
+
+// Uniform grid over the map for point entities. Entries are caller-side indices
+// bucketed by cell in intrusive linked lists, so a rebuild is a clear plus one
+// insert per entity and queries allocate nothing. Not thread-safe; each match owns its own.
+public class SpatialGrid {
+
+    private final double cellSize;
+    private final int cols;
+    private final int rows;
+    private final int[] cellHead;
+
+    private int[] items = new int[64];
+    private int[] next = new int[64];
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private int count;
+
+    private int[] results = new int[64];
+
+    public SpatialGrid(double width, double height, double cellSize) {
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cellHead = new int[cols * rows];
+        Arrays.fill(cellHead, -1);
+    }
+
+    public void clear() {
+        Arrays.fill(cellHead, -1);
+        count = 0;
+    }
+
+    public void insert(int item, double x, double y) {
+        if (count == items.length) {
+            int size = count * 2;
+            items = Arrays.copyOf(items, size);
+            next = Arrays.copyOf(next, size);
+            xs = Arrays.copyOf(xs, size);
+            ys = Arrays.copyOf(ys, size);
+        }
+        int cell = cellIndex(column(x), row(y));
+        items[count] = item;
+        xs[count] = x;
+        ys[count] = y;
+        next[count] = cellHead[cell];
+        cellHead[cell] = count;
+        count++;
+    }
+
+    // Collects every entry within radius of (x, y) into results() and returns how many
+    public int query(double x, double y, double radius) {
+        int minCol = column(x - radius);
+        int maxCol = column(x + radius);
+        int minRow = row(y - radius);
+        int maxRow = row(y + radius);
+        double radiusSq = radius * radius;
+        int found = 0;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                for (int e = cellHead[cellIndex(col, row)]; e != -1; e = next[e]) {
+                    double dx = xs[e] - x;
+                    double dy = ys[e] - y;
+                    if (dx * dx + dy * dy < radiusSq) {
+                        if (found == results.length) {
+                            results = Arrays.copyOf(results, found * 2);
+                        }
+                        results[found++] = items[e];
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // Scratch buffer filled by the last query; only the first query() entries are valid
+    public int[] results() {
+        return results;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(cols - 1, (int) (x / cellSize)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) (y / cellSize)));
+    }
+
+    private int cellIndex(int col, int row) {
+        return row * cols + col;
+    }
+}
@@ -0,0 +1,67 @@
+package com.gngm.engine;
+
+// Continuous hit tests for an entity moving along the segment (x0, y0) -> (x1, y1)
+// during one step. Each returns the fraction of the step, in [0, 1], at which the
+// segment first touches the shape, or NONE when it doesn't. A segment that starts
+// inside the shape hits at 0.
+public final class Sweep {
+
+    public static final double NONE = Double.POSITIVE_INFINITY;
+
+    private Sweep() {
+    }
+
+    // Against an axis-aligned box, edges included (slab method)
+    public static double box(double x0, double y0, double x1, double y1,
+                             double minX, double minY, double maxX, double maxY) {
+        double enter = 0;
+        double exit = 1;
+        double dx = x1 - x0;
+        if (dx == 0) {
+            if (x0 < minX || x0 > maxX) {
+                return NONE;
+            }
+        } else {
+            double t0 = (minX - x0) / dx;
+            double t1 = (maxX - x0) / dx;
+            enter = Math.max(enter, Math.min(t0, t1));
+            exit = Math.min(exit, Math.max(t0, t1));
+        }
+        double dy = y1 - y0;
+        if (dy == 0) {
+            if (y0 < minY || y0 > maxY) {
+                return NONE;
+            }
+        } else {
+            double t0 = (minY - y0) / dy;
+            double t1 = (maxY - y0) / dy;
+            enter = Math.max(enter, Math.min(t0, t1));
+            exit = Math.min(exit, Math.max(t0, t1));
+        }
+        return enter <= exit ? enter : NONE;
+    }
+
+    // Against a circle; closer than radius counts, exactly radius away doesn't
+    public static double circle(double x0, double y0, double x1, double y1, double cx, double cy, double radius) {
+        double fx = x0 - cx;
+        double fy = y0 - cy;
+        double c = fx * fx + fy * fy - radius * radius;
+        if (c < 0) {
+            return 0;
+        }
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double a = dx * dx + dy * dy;
+        if (a == 0) {
+            return NONE;
+        }
+        double b = fx * dx + fy * dy;
+        // Moving away, or the line misses the circle
+        double discriminant = b * b - a * c;
+        if (b >= 0 || discriminant <= 0) {
+            return NONE;
+        }
+        double t = (-b - Math.sqrt(discriminant)) / a;
+        return t <= 1 ? t : NONE;
+    }
+}
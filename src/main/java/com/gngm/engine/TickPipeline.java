@@ -0,0 +1,95 @@
+package com.gngm.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Ordered, named stages that make up a match tick. Step stages run once per fixed
+// simulation step (a late tick may run several); tick stages run once after them,
+// e.g. publishing. Every stage is timed into its own histogram. Stages can be added
+// while workers are running: the stage arrays are copied on write.
+public class TickPipeline<M> {
+
+    @FunctionalInterface
+    public interface Stage<M> {
+        void run(M match);
+    }
+
+    public enum Phase { STEP, TICK }
+
+    private volatile NamedStage<M>[] stepStages = newArray(0);
+    private volatile NamedStage<M>[] tickStages = newArray(0);
+
+    public synchronized TickPipeline<M> addStep(String name, Stage<M> stage) {
+        stepStages = append(stepStages, new NamedStage<>(name, Phase.STEP, stage));
+        return this;
+    }
+
+    public synchronized TickPipeline<M> addTick(String name, Stage<M> stage) {
+        tickStages = append(tickStages, new NamedStage<>(name, Phase.TICK, stage));
+        return this;
+    }
+
+    public void runStep(M match) {
+        run(stepStages, match);
+    }
+
+    public void runTick(M match) {
+        run(tickStages, match);
+    }
+
+    public List<StageStats> getStats() {
+        List<StageStats> stats = new ArrayList<>();
+        for (NamedStage<M> stage : stepStages) {
+            stats.add(stage.stats());
+        }
+        for (NamedStage<M> stage : tickStages) {
+            stats.add(stage.stats());
+        }
+        return stats;
+    }
+
+    private static <M> void run(NamedStage<M>[] stages, M match) {
+        for (NamedStage<M> stage : stages) {
+            long start = System.nanoTime();
+            try {
+                stage.stage.run(match);
+            } finally {
+                stage.timings.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static <M> NamedStage<M>[] append(NamedStage<M>[] stages, NamedStage<M> stage) {
+        NamedStage<M>[] copy = Arrays.copyOf(stages, stages.length + 1);
+        copy[stages.length] = stage;
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <M> NamedStage<M>[] newArray(int size) {
+        return (NamedStage<M>[]) new NamedStage<?>[size];
+    }
+
+    public record StageStats(String name, Phase phase, long count, long meanNanos, long p50Nanos,
+                             long p99Nanos, long maxNanos) {
+    }
+
+    private static final class NamedStage<M> {
+        final String name;
+        final Phase phase;
+        final Stage<M> stage;
+        final LatencyHistogram timings = new LatencyHistogram();
+
+        NamedStage(String name, Phase phase, Stage<M> stage) {
+            this.name = name;
+            this.phase = phase;
+            this.stage = stage;
+        }
+
+        StageStats stats() {
+            return new StageStats(name, phase, timings.getCount(), timings.getMeanNanos(),
+                timings.percentileNanos(0.5), timings.percentileNanos(0.99), timings.getMaxNanos());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.gngm.engine;
+
+// Clock abstraction for the engine, so simulation timing can be driven by something
+// other than the wall clock (replays, benchmarks)
+public interface TimeSource {
+
+    TimeSource SYSTEM = new TimeSource() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    // Monotonic time used for tick scheduling
+    long nanoTime();
+
+    // Wall clock time used for non-simulation bookkeeping
+    long currentTimeMillis();
+}
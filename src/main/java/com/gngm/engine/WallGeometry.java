@@ -0,0 +1,214 @@
+package com.gngm.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Immutable, compiled wall layout. Walls are bucketed into a uniform grid by their
+// bounds grown by the largest query radius, and each cell keeps its own packed copy
+// of the bounds it needs. A point or circle test therefore reads one contiguous run
+// of doubles from one cell, without boxing or allocation; a segment sweep reads the few
+// cells under its bounds. The layout's navigation grid is built from it on first use
+// (MapRegistryService asks for it when it compiles a map).
+// Safe to share between threads.
+public final class WallGeometry {
+
+    public static final WallGeometry EMPTY = compile(List.of(), 1, 1, 1, 0);
+
+    // Navigation cells are one agent radius wide; waypoints about two wall cells apart
+    private static final double NAV_CELL_SIZE = 20.0;
+    private static final double WAYPOINT_SPACING = 160.0;
+
+    private final List<WallRect> walls;
+    private final double width;
+    private final double height;
+    private final double cellSize;
+    private final double padding;
+    private final int cols;
+    private final int rows;
+    // Entries of cell c are [cellStart[c], cellStart[c + 1]); each entry is minX, minY, maxX, maxY
+    private final int[] cellStart;
+    private final double[] bounds;
+    // Built on first use; a racing duplicate build is identical and harmless
+    private volatile NavGrid navGrid;
+
+    private WallGeometry(List<WallRect> walls, double width, double height, double cellSize, double padding,
+                         int cols, int rows, int[] cellStart, double[] bounds) {
+        this.walls = walls;
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        this.padding = padding;
+        this.cols = cols;
+        this.rows = rows;
+        this.cellStart = cellStart;
+        this.bounds = bounds;
+    }
+
+    // padding is the largest radius circle queries will use
+    public static WallGeometry compile(List<WallRect> walls, double width, double height, double cellSize, double padding) {
+        int cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        int rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        List<List<WallRect>> cells = new ArrayList<>(cols * rows);
+        for (int i = 0; i < cols * rows; i++) {
+            cells.add(new ArrayList<>());
+        }
+        for (WallRect wall : walls) {
+            int minCol = clamp((int) Math.floor((wall.x() - padding) / cellSize), cols);
+            int maxCol = clamp((int) Math.floor((wall.x() + wall.width() + padding) / cellSize), cols);
+            int minRow = clamp((int) Math.floor((wall.y() - padding) / cellSize), rows);
+            int maxRow = clamp((int) Math.floor((wall.y() + wall.height() + padding) / cellSize), rows);
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    cells.get(row * cols + col).add(wall);
+                }
+            }
+        }
+
+        int[] cellStart = new int[cols * rows + 1];
+        int entries = 0;
+        for (int c = 0; c < cells.size(); c++) {
+            cellStart[c] = entries;
+            entries += cells.get(c).size();
+        }
+        cellStart[cells.size()] = entries;
+
+        double[] bounds = new double[entries * 4];
+        int offset = 0;
+        for (List<WallRect> cell : cells) {
+            for (WallRect wall : cell) {
+                bounds[offset++] = wall.x();
+                bounds[offset++] = wall.y();
+                bounds[offset++] = wall.x() + wall.width();
+                bounds[offset++] = wall.y() + wall.height();
+            }
+        }
+        return new WallGeometry(List.copyOf(walls), width, height, cellSize, padding, cols, rows, cellStart, bounds);
+    }
+
+    public static WallGeometry fromMaps(List<Map<String, Object>> walls, double width, double height,
+                                        double cellSize, double padding) {
+        List<WallRect> rects = new ArrayList<>(walls.size());
+        for (Map<String, Object> wall : walls) {
+            rects.add(WallRect.fromMap(wall));
+        }
+        return compile(rects, width, height, cellSize, padding);
+    }
+
+    // True if the point lies inside or on the edge of any wall
+    public boolean containsPoint(double x, double y) {
+        int cell = cellAt(x, y);
+        for (int i = cellStart[cell] * 4, end = cellStart[cell + 1] * 4; i < end; i += 4) {
+            if (x >= bounds[i] && x <= bounds[i + 2] && y >= bounds[i + 1] && y <= bounds[i + 3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // True if a circle overlaps any wall; radius must not exceed the compile padding
+    public boolean intersectsCircle(double x, double y, double radius) {
+        double radiusSq = radius * radius;
+        int cell = cellAt(x, y);
+        for (int i = cellStart[cell] * 4, end = cellStart[cell + 1] * 4; i < end; i += 4) {
+            double closestX = Math.max(bounds[i], Math.min(x, bounds[i + 2]));
+            double closestY = Math.max(bounds[i + 1], Math.min(y, bounds[i + 3]));
+            double dx = x - closestX;
+            double dy = y - closestY;
+            if (dx * dx + dy * dy < radiusSq) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Fraction of the segment (x0, y0) -> (x1, y1) at which it first enters a wall, or
+    // Sweep.NONE. Visits every cell the segment's bounds overlap, so it suits segments a
+    // few cells long at most, like one step of a projectile.
+    public double sweep(double x0, double y0, double x1, double y1) {
+        int minCol = clamp((int) Math.floor(Math.min(x0, x1) / cellSize), cols);
+        int maxCol = clamp((int) Math.floor(Math.max(x0, x1) / cellSize), cols);
+        int minRow = clamp((int) Math.floor(Math.min(y0, y1) / cellSize), rows);
+        int maxRow = clamp((int) Math.floor(Math.max(y0, y1) / cellSize), rows);
+        double earliest = Sweep.NONE;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int cell = row * cols + col;
+                // A wall in several cells is tested once per cell; the minimum is the same
+                for (int i = cellStart[cell] * 4, end = cellStart[cell + 1] * 4; i < end; i += 4) {
+                    double t = Sweep.box(x0, y0, x1, y1, bounds[i], bounds[i + 1], bounds[i + 2], bounds[i + 3]);
+                    if (t < earliest) {
+                        earliest = t;
+                    }
+                }
+            }
+        }
+        return earliest;
+    }
+
+    // True if no wall blocks the straight line between the points. Walks the cells the line
+    // crosses in order and stops at the first blocking wall, so long clear lines stay cheap.
+    public boolean lineOfSight(double x0, double y0, double x1, double y1) {
+        int col = clamp((int) Math.floor(x0 / cellSize), cols);
+        int row = clamp((int) Math.floor(y0 / cellSize), rows);
+        int endCol = clamp((int) Math.floor(x1 / cellSize), cols);
+        int endRow = clamp((int) Math.floor(y1 / cellSize), rows);
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        int stepCol = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+        double tDeltaX = dx != 0 ? cellSize / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = dy != 0 ? cellSize / Math.abs(dy) : Double.POSITIVE_INFINITY;
+        double tMaxX = dx > 0 ? ((col + 1) * cellSize - x0) / dx : dx < 0 ? (col * cellSize - x0) / dx : Double.POSITIVE_INFINITY;
+        double tMaxY = dy > 0 ? ((row + 1) * cellSize - y0) / dy : dy < 0 ? (row * cellSize - y0) / dy : Double.POSITIVE_INFINITY;
+        while (true) {
+            int cell = row * cols + col;
+            for (int i = cellStart[cell] * 4, end = cellStart[cell + 1] * 4; i < end; i += 4) {
+                if (Sweep.box(x0, y0, x1, y1, bounds[i], bounds[i + 1], bounds[i + 2], bounds[i + 3]) <= 1) {
+                    return false;
+                }
+            }
+            if (col == endCol && row == endRow) {
+                return true;
+            }
+            if (tMaxX < tMaxY) {
+                col += stepCol;
+                tMaxX += tDeltaX;
+            } else {
+                row += stepRow;
+                tMaxY += tDeltaY;
+            }
+            if (col < 0 || col >= cols || row < 0 || row >= rows) {
+                return true;
+            }
+        }
+    }
+
+    // Walkability and flow fields for agents of the compile padding's radius
+    public NavGrid navGrid() {
+        NavGrid grid = navGrid;
+        if (grid == null) {
+            grid = NavGrid.build(this, width, height, NAV_CELL_SIZE, padding, WAYPOINT_SPACING);
+            navGrid = grid;
+        }
+        return grid;
+    }
+
+    public List<WallRect> getWalls() {
+        return walls;
+    }
+
+    public double getPadding() {
+        return padding;
+    }
+
+    private int cellAt(double x, double y) {
+        int col = clamp((int) Math.floor(x / cellSize), cols);
+        int row = clamp((int) Math.floor(y / cellSize), rows);
+        return row * cols + col;
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
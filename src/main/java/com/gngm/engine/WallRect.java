@@ -0,0 +1,16 @@
+package com.gngm.engine;
+
+import java.util.Map;
+
+// Axis-aligned wall as authored in a map layout
+public record WallRect(double x, double y, double width, double height) {
+
+    // Reads the {x, y, width, height} shape used by map layouts and /api/map/walls
+    public static WallRect fromMap(Map<String, Object> wall) {
+        return new WallRect(
+            ((Number) wall.get("x")).doubleValue(),
+            ((Number) wall.get("y")).doubleValue(),
+            ((Number) wall.get("width")).doubleValue(),
+            ((Number) wall.get("height")).doubleValue());
+    }
+}
@@ -3,7 +3,10 @@ package com.gngm.repository;
 import com.gngm.entity.MapEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Optional;
 
 @Repository
 public interface MapRepository extends JpaRepository<MapEntity, Long> {
+    // Names aren't unique in the schema; of several maps with one name, the oldest wins
+    Optional<MapEntity> findFirstByNameOrderByIdAsc(String name);
 } 
\ No newline at end of file
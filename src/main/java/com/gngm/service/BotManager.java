@@ -1,126 +1,190 @@
 package com.gngm.service;
 
+import com.gngm.engine.NavGrid;
+import com.gngm.engine.SpatialGrid;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+// Bots play inside their match's tick: a "bots" step stage on the match's worker, after
+// the built-in stages, so they see the positions and player grid of the step just run.
+// Decisions only draw from the match's seeded random, so journals replay bots exactly.
+// Paths come from the map's shared nav grid: bots wander between its waypoints along
+// cached flow fields, so no bot runs a search of its own.
 @Service
 public class BotManager {
-    private final Map<Integer, BotData> bots = new ConcurrentHashMap<>();
+
+    private static final Logger logger = LoggerFactory.getLogger(BotManager.class);
+
+    // Well above database player ids
+    private static final int FIRST_BOT_ID = 1_000_000;
+    // Each bot decides this often in simulated time; bots are spread over the steps in between
+    private static final double THINK_SECONDS = 0.1;
+    private static final double MOVE_SPEED = 2.0;
+    private static final double TARGET_REACHED = 50.0;
+    private static final double SHOOT_RANGE = 400.0;
+    private static final long SHOOT_COOLDOWN_MILLIS = 2000;
+
     private final GameEngineService gameEngineService;
-    private static final int MAX_BOTS = 3;
-    private static int botIdCounter = 10000;
+    private final AtomicInteger nextBotId = new AtomicInteger(FIRST_BOT_ID);
+    // Bots added per match, for the budget; emptied when the match closes
+    private final Map<Long, Set<Integer>> matchBots = new ConcurrentHashMap<>();
+
+    @Value("${game.bots.max-per-match:8}")
+    private int maxBotsPerMatch;
 
     @Autowired
     public BotManager(GameEngineService gameEngineService) {
         this.gameEngineService = gameEngineService;
     }
 
-    // Simple bot data class
-    public static class BotData {
-        private int id;
-        private String username;
-        private double targetX;
-        private double targetY;
-        private long lastShootTime;
-        private long matchId;
-
-        public BotData(int id, String username, long matchId) {
-            this.id = id;
-            this.username = username;
-            this.matchId = matchId;
-            this.targetX = Math.random() * 1600;
-            this.targetY = Math.random() * 1200;
-            this.lastShootTime = 0;
+    // Decision state of one bot; only touched by its match's tick worker
+    public static class Brain {
+        // Nav grid cell the bot is heading for, -1 until the first decision
+        int goal = -1;
+        long lastShootTime = Long.MIN_VALUE / 2;
+    }
+
+    @PostConstruct
+    public void start() {
+        gameEngineService.addStepStage("bots", this::think);
+        gameEngineService.onMatchClosed(matchBots::remove);
+    }
+
+    // Adds up to count bots, within the match's budget; returns the new bot ids
+    public List<Integer> addBots(long matchId, int count) {
+        List<Integer> added = new ArrayList<>();
+        Set<Integer> bots = matchBots.computeIfAbsent(matchId, id -> ConcurrentHashMap.newKeySet());
+        synchronized (bots) {
+            while (added.size() < count && bots.size() < maxBotsPerMatch) {
+                int botId = nextBotId.getAndIncrement();
+                bots.add(botId);
+                added.add(botId);
+            }
+        }
+        for (int botId : added) {
+            gameEngineService.addBot(matchId, botId, "Bot" + botId);
         }
+        if (!added.isEmpty()) {
+            logger.info("Added {} bots to match {}", added.size(), matchId);
+        }
+        return added;
+    }
 
-        // Getters and setters
-        public int getId() { return id; }
-        public String getUsername() { return username; }
-        public double getTargetX() { return targetX; }
-        public double getTargetY() { return targetY; }
-        public long getLastShootTime() { return lastShootTime; }
-        public void setTargetX(double targetX) { this.targetX = targetX; }
-        public void setTargetY(double targetY) { this.targetY = targetY; }
-        public void setLastShootTime(long lastShootTime) { this.lastShootTime = lastShootTime; }
-        public long getMatchId() { return matchId; }
+    // Removes every bot from the match; returns how many there were
+    public int removeBots(long matchId) {
+        Set<Integer> bots = matchBots.remove(matchId);
+        if (bots == null) {
+            return 0;
+        }
+        for (int botId : bots) {
+            gameEngineService.removePlayer(matchId, botId);
+        }
+        logger.info("Removed {} bots from match {}", bots.size(), matchId);
+        return bots.size();
     }
 
-    public void addBot(long matchId) {
-        if (bots.size() < MAX_BOTS) {
-            int botId = botIdCounter++;
-            String username = "Bot" + botId;
-            BotData bot = new BotData(botId, username, matchId);
-            bots.put(botId, bot);
-            gameEngineService.addPlayer(matchId, botId, username);
-            System.out.println("🤖 Added bot: " + username + " to match " + matchId);
+    public int getBotCount() {
+        int count = 0;
+        for (Set<Integer> bots : matchBots.values()) {
+            count += bots.size();
         }
+        return count;
     }
 
-    public void removeBot(int botId) {
-        BotData bot = bots.remove(botId);
-        if (bot != null) {
-            gameEngineService.removePlayer(bot.getMatchId(), botId);
-            System.out.println("🤖 Removed bot: " + botId + " from match " + bot.getMatchId());
+    // Bot stage: a bot thinks on the steps where (tick + id) is a multiple of the think
+    // interval, so a match's bots are spread evenly over the steps
+    private void think(GameEngineService.MatchState match) {
+        if (match.gameOver) {
+            return;
+        }
+        long stepsPerThink = Math.max(1, Math.round(THINK_SECONDS / match.clock.stepSeconds()));
+        long tick = match.clock.getTick();
+        for (GameEngineService.Player player : match.players.values()) {
+            Brain brain = player.brain;
+            if (brain != null && player.alive && (tick + player.id) % stepsPerThink == 0) {
+                think(match, player, brain);
+            }
         }
     }
 
-    @Scheduled(fixedRate = 100) // Update bots every 100ms
-    public void updateBots() {
-        for (BotData bot : bots.values()) {
-            updateBotBehavior(bot);
+    // Simple bot AI: wander between random waypoints and shoot at the nearest visible player in range
+    private void think(GameEngineService.MatchState match, GameEngineService.Player player, Brain brain) {
+        move(match, player, brain);
+        long now = match.clock.simTimeMillis();
+        if (now - brain.lastShootTime > SHOOT_COOLDOWN_MILLIS) {
+            GameEngineService.Player target = nearestTarget(match, player);
+            if (target != null && match.walls.lineOfSight(player.x, player.y, target.x, target.y)) {
+                double direction = Math.atan2(target.y - player.y, target.x - player.x);
+                gameEngineService.applyBotInput(match, new GameEngineService.ShootCommand(player.id, direction));
+                brain.lastShootTime = now;
+            }
         }
     }
-    private void updateBotBehavior(BotData bot) {
-        // Simple bot AI: move randomly and shoot occasionally
-        GameEngineService.MatchState match = gameEngineService.matches.get(bot.getMatchId());
-        if (match == null) return;
-        GameEngineService.Player player = match.players.get(bot.getId());
-        if (player == null || !player.alive) return;
-        // Move towards target
-        double dx = bot.getTargetX() - player.x;
-        double dy = bot.getTargetY() - player.y;
-        double distance = Math.sqrt(dx * dx + dy * dy);
-        if (distance < 50) {
-            bot.setTargetX(Math.random() * 1600);
-            bot.setTargetY(Math.random() * 1200);
-        } else {
-            double moveSpeed = 2.0;
-            double moveX = (dx / distance) * moveSpeed;
-            double moveY = (dy / distance) * moveSpeed;
-            double rotation = Math.atan2(dy, dx);
-            gameEngineService.movePlayer(bot.getMatchId(), bot.getId(), moveX, moveY, rotation);
+
+    // Heads straight for the goal when nothing is in the way, otherwise for the next cell of
+    // the goal's flow field. A new goal is picked on arrival or when the goal can't be reached.
+    private void move(GameEngineService.MatchState match, GameEngineService.Player player, Brain brain) {
+        NavGrid nav = match.walls.navGrid();
+        if (nav.waypointCount() == 0) {
+            return;
         }
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - bot.getLastShootTime() > 2000) {
-            GameEngineService.Player nearestPlayer = findNearestPlayer(player, match);
-            if (nearestPlayer != null) {
-                double shootDx = nearestPlayer.x - player.x;
-                double shootDy = nearestPlayer.y - player.y;
-                double shootDistance = Math.sqrt(shootDx * shootDx + shootDy * shootDy);
-                if (shootDistance < 400) {
-                    double shootDirection = Math.atan2(shootDy, shootDx);
-                    gameEngineService.playerShoot(bot.getMatchId(), bot.getId(), shootDirection);
-                    bot.setLastShootTime(currentTime);
-                }
+        double goalX = brain.goal >= 0 ? nav.centerX(brain.goal) : player.x;
+        double goalY = brain.goal >= 0 ? nav.centerY(brain.goal) : player.y;
+        double dx = goalX - player.x;
+        double dy = goalY - player.y;
+        if (brain.goal < 0 || dx * dx + dy * dy < TARGET_REACHED * TARGET_REACHED) {
+            brain.goal = nav.waypoint(match.random.nextInt(nav.waypointCount()));
+            return;
+        }
+        if (!nav.clearPath(player.x, player.y, goalX, goalY)) {
+            NavGrid.FlowField field = nav.flowTo(brain.goal);
+            int cell = nav.cellAt(player.x, player.y);
+            int next = field.next(cell);
+            if (next < 0) {
+                brain.goal = nav.waypoint(match.random.nextInt(nav.waypointCount()));
+                return;
             }
+            dx = nav.centerX(next) - player.x;
+            dy = nav.centerY(next) - player.y;
+        }
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (distance > 0) {
+            gameEngineService.applyBotInput(match, new GameEngineService.MoveCommand(player.id,
+                dx / distance * MOVE_SPEED, dy / distance * MOVE_SPEED, Math.atan2(dy, dx)));
         }
     }
-    private GameEngineService.Player findNearestPlayer(GameEngineService.Player botPlayer, GameEngineService.MatchState match) {
+
+    // Nearest living player within shooting range, from the player grid the collision stage built this step
+    private static GameEngineService.Player nearestTarget(GameEngineService.MatchState match, GameEngineService.Player bot) {
+        SpatialGrid grid = match.playerGrid;
+        int candidates = grid.query(bot.x, bot.y, SHOOT_RANGE);
+        int[] hits = grid.results();
         GameEngineService.Player nearest = null;
-        double nearestDistance = Double.MAX_VALUE;
-        for (GameEngineService.Player player : match.players.values()) {
-            if (player.id == botPlayer.id || !player.alive) continue;
-            double dx = player.x - botPlayer.x;
-            double dy = player.y - botPlayer.y;
-            double distance = Math.sqrt(dx * dx + dy * dy);
-            if (distance < nearestDistance) {
-                nearestDistance = distance;
+        double nearestDistanceSq = Double.MAX_VALUE;
+        for (int i = 0; i < candidates; i++) {
+            GameEngineService.Player player = match.indexedPlayers[hits[i]];
+            if (player.id == bot.id || !player.alive) {
+                continue;
+            }
+            double dx = player.x - bot.x;
+            double dy = player.y - bot.y;
+            double distanceSq = dx * dx + dy * dy;
+            if (distanceSq < nearestDistanceSq) {
+                nearestDistanceSq = distanceSq;
                 nearest = player;
             }
         }
         return nearest;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package com.gngm.service;
+
+import org.springframework.util.MimeType;
+
+import java.util.function.Consumer;
+
+// Where match-wide topic messages go once encoded. The local backend hands them to
+// this node's broker; the Redis backend publishes them so every node can relay them to
+// its own sessions (game.broadcast.backend=local|redis).
+public interface BroadcastBackend {
+
+    // True if a session on any node may be subscribed to the destination
+    boolean hasSubscribers(String destination);
+
+    void send(String destination, byte[] payload, MimeType contentType);
+
+    // Called with the destination when a session on another node subscribes to a topic,
+    // so the node that owns the match can start it from a keyframe
+    void onRemoteSubscribe(Consumer<String> listener);
+}
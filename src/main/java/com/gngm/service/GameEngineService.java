@@ -1,45 +1,165 @@
 package com.gngm.service;
 
 import org.springframework.stereotype.Service;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.gngm.engine.InputJournal;
+import com.gngm.engine.MatchSnapshot;
+import com.gngm.engine.MatchTickScheduler;
+import com.gngm.engine.ProjectilePool;
+import com.gngm.engine.SimulationClock;
+import com.gngm.engine.SpatialGrid;
+import com.gngm.engine.Sweep;
+import com.gngm.engine.TickPipeline;
+import com.gngm.engine.TimeSource;
+import com.gngm.engine.WallGeometry;
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.*;
-import org.springframework.web.client.RestTemplate;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
 
 @Service
 @RequiredArgsConstructor
 public class GameEngineService {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private static final Logger logger = LoggerFactory.getLogger(GameEngineService.class);
+
+    private final GameStateBroadcaster broadcaster;
+    private final MatchTickScheduler tickScheduler;
+    private final TimeSource timeSource;
+    private final MapRegistryService mapRegistry;
+    private final MatchDirectory directory;
+
+    @Value("${game.tick.rate-hz:60}")
+    private int tickRateHz;
+
+    @Value("${game.tick.max-catch-up-steps:5}")
+    private int maxCatchUpSteps;
+
+    // No audience for this long drops a match to the idle tick rate
+    @Value("${game.idle.after-ms:5000}")
+    private long idleAfterMs;
+
+    @Value("${game.idle.tick-rate-hz:5}")
+    private int idleTickRateHz;
+
+    // No audience for this long stops ticking the match until someone joins or watches
+    @Value("${game.idle.hibernate-after-ms:60000}")
+    private long hibernateAfterMs;
+
+    @Value("${game.journal.enabled:false}")
+    private boolean journalEnabled;
+
+    @Value("${game.journal.dir:journals}")
+    private String journalDir;
+
+    @Value("${game.journal.region-size:1048576}")
+    private int journalRegionSize;
     
     // Game constants
-    private static final int MAP_WIDTH = 1600;
-    private static final int MAP_HEIGHT = 1200;
+    public static final int MAP_WIDTH = 1600;
+    public static final int MAP_HEIGHT = 1200;
     private static final double PROJECTILE_SPEED = 300.0;
+    private static final long PROJECTILE_LIFETIME_NANOS = TimeUnit.MILLISECONDS.toNanos(3000);
     private static final int PROJECTILE_DAMAGE = 25;
     private static final int MAX_HEALTH = 100;
-    private static final double PLAYER_RADIUS = 20.0;
-    private static final String WALLS_API_URL = "http://localhost:9090/api/map/walls";
+    public static final double PLAYER_RADIUS = 20.0;
+    // Client velocities are in pixels per 1/60 s, the rate the game was tuned at
+    private static final double VELOCITY_TICK_RATE = 60.0;
+    private static final double PROJECTILE_HIT_RADIUS = 25.0;
+    // About two player diameters, so a hit query touches at most 4 cells
+    private static final double PLAYER_GRID_CELL_SIZE = 64.0;
+    // Inputs applied per step at most; the rest wait for the next step
+    private static final int MAX_INPUTS_PER_STEP = 1024;
+    private static final DateTimeFormatter JOURNAL_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    // Name suffixes tried when a journal of the same match was started in the same millisecond
+    private static final int JOURNAL_NAME_ATTEMPTS = 10;
     
-    // Game state
-    private final Map<Integer, Player> players = new ConcurrentHashMap<>();
-    private final Map<String, Projectile> projectiles = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService gameLoop = Executors.newSingleThreadScheduledExecutor();
-    private List<Map<String, Object>> wallRects = new ArrayList<>();
-    private long lastWallFetch = 0;
+    // Stages every match tick runs through, in order
+    private final TickPipeline<MatchState> pipeline = new TickPipeline<>();
+    // Step stages added with addStepStage, so replays run them too
+    private final List<Map.Entry<String, TickPipeline.Stage<MatchState>>> extraStepStages = new CopyOnWriteArrayList<>();
+    private final List<LongConsumer> matchClosedListeners = new CopyOnWriteArrayList<>();
     
+    // ACTIVE matches tick at the full rate, IDLE ones (nobody watching) at the idle rate,
+    // HIBERNATING ones not at all
+    public enum Activity { ACTIVE, IDLE, HIBERNATING }
+
     // Multi-match support
     public static class MatchState {
+        public final long id;
         public String mapName;
+        public final SimulationClock clock;
+        // Every random choice in the simulation draws from this, so a match replays exactly from its seed
+        public final long seed;
+        public final SplittableRandom random;
+        // Inputs as applied, when journaling is on; written by the tick worker
+        public volatile MatchJournal journal;
+        // Changed by the tick worker, except that waking from hibernation happens on the
+        // thread that brought an input or an audience, under the match's lock
+        public volatile Activity activity = Activity.ACTIVE;
+        volatile long lastAudienceNanos;
+        long nextIdleTickNanos;
+        // Compiled layout of mapName; swapped whole when the map is reloaded
+        public volatile WallGeometry walls;
+        // Written only by the tick worker; concurrent so other threads can still read it
         public Map<Integer, Player> players = new ConcurrentHashMap<>();
-        public Map<String, Projectile> projectiles = new ConcurrentHashMap<>();
+        public final ProjectilePool projectiles = new ProjectilePool(64);
+        // Inputs from any thread, applied by the tick worker at the start of each step
+        public final Queue<InputCommand> inputs = new ConcurrentLinkedQueue<>();
+        public volatile long inputsProcessed;
+        public volatile long inputsRejected;
+        public volatile int lastTickInputs;
+        public volatile int maxTickInputs;
+        // Inputs taken off the queue during the current tick
+        public int tickInputs;
+        // Set by anything that changes replicated state; the tick publishes once if set
+        public boolean dirty;
+        public volatile long publishRequests;
+        public volatile long publishesSent;
+        public volatile long idleTicks;
         public boolean gameOver = false;
         public String winnerName = null;
         public long winnerAnnounceTime = 0;
-        public MatchState(String mapName) {
+        // Players bucketed by position; grid entries index into indexedPlayers
+        public final SpatialGrid playerGrid = new SpatialGrid(MAP_WIDTH, MAP_HEIGHT, PLAYER_GRID_CELL_SIZE);
+        public Player[] indexedPlayers = new Player[16];
+        public MatchState(long id, String mapName, SimulationClock clock, WallGeometry walls, long seed) {
+            this.id = id;
             this.mapName = mapName;
+            this.clock = clock;
+            this.walls = walls;
+            this.seed = seed;
+            this.random = new SplittableRandom(seed);
+        }
+
+        // Rebuilds the player grid from current positions
+        public void indexPlayers() {
+            playerGrid.clear();
+            int index = 0;
+            for (Player player : players.values()) {
+                if (index == indexedPlayers.length) {
+                    indexedPlayers = Arrays.copyOf(indexedPlayers, index * 2);
+                }
+                indexedPlayers[index] = player;
+                playerGrid.insert(index, player.x, player.y);
+                index++;
+            }
+            Arrays.fill(indexedPlayers, index, indexedPlayers.length, null);
         }
     }
     public final Map<Long, MatchState> matches = new ConcurrentHashMap<>();
@@ -70,51 +190,350 @@ public class GameEngineService {
     
     @PostConstruct
     public void startGameLoop() {
-        gameLoop.scheduleAtFixedRate(() -> {
-            fetchWallsIfNeeded();
-            List<Long> matchesToRemove = new ArrayList<>();
-            for (Long matchId : matches.keySet()) {
-                MatchState match = matches.get(matchId);
-                if (match != null) {
-                    if (match.gameOver) {
-                        // Pause game logic, just broadcast state
-                        broadcastGameState(matchId);
-                        // After 4 seconds, end match
-                        if (System.currentTimeMillis() - match.winnerAnnounceTime > 4000) {
-                            matchesToRemove.add(matchId);
-                        }
-                        continue;
-                    }
-                    for (Player player : match.players.values()) {
-                        if (player.alive) {
-                            double tryX = Math.max(20, Math.min(MAP_WIDTH - 20, player.x + player.vx));
-                            double tryY = Math.max(20, Math.min(MAP_HEIGHT - 20, player.y + player.vy));
-                            double newX = player.x;
-                            double newY = player.y;
-                            if (!collidesWithWall(tryX, player.y)) {
-                                newX = tryX;
-                            }
-                            if (!collidesWithWall(newX, tryY)) {
-                                newY = tryY;
-                            }
-                            player.x = newX;
-                            player.y = newY;
-                        }
-                    }
-                    updateProjectiles(matchId);
-                    checkCollisions(matchId);
-                    cleanupDeadPlayers(matchId);
-                    broadcastGameState(matchId);
+        buildPipeline();
+        directory.onForwardedInput(this::acceptForwarded);
+        directory.onLeaseLost(this::dropMatch);
+        broadcaster.onAudience(matchId -> {
+            MatchState match = matches.get(matchId);
+            if (match != null) {
+                // Stamped before wake() reads the flag: the broker may not list a new
+                // subscriber yet when hibernate() asks, but it will see this
+                match.lastAudienceNanos = timeSource.nanoTime();
+                wake(match);
+            }
+        });
+        tickScheduler.start(this::tickMatch);
+    }
+
+    // Package-private, like the stages below, so benchmarks can drive a match without tick workers
+    void buildPipeline() {
+        addSimulationStages(pipeline).addTick("publish", this::publish);
+    }
+
+    private TickPipeline<MatchState> addSimulationStages(TickPipeline<MatchState> stages) {
+        return stages
+            .addStep("input", this::applyInputs)
+            .addStep("movement", this::movePlayers)
+            .addStep("projectiles", this::updateProjectiles)
+            .addStep("collisions", this::checkCollisions)
+            .addStep("respawn", this::cleanupDeadPlayers);
+    }
+
+    // Registers an extra stage; step stages run after the built-in ones, once per simulation step
+    public void addStepStage(String name, TickPipeline.Stage<MatchState> stage) {
+        extraStepStages.add(Map.entry(name, stage));
+        pipeline.addStep(name, stage);
+    }
+
+    public void addTickStage(String name, TickPipeline.Stage<MatchState> stage) {
+        pipeline.addTick(name, stage);
+    }
+
+    // Told the match id when a match ends or moves to another node
+    public void onMatchClosed(LongConsumer listener) {
+        matchClosedListeners.add(listener);
+    }
+
+    // Runs one tick of a match on its pinned worker; returns false once the match is over
+    private boolean tickMatch(long matchId) {
+        MatchState match = matches.get(matchId);
+        if (match == null) {
+            return false;
+        }
+        long now = timeSource.nanoTime();
+        if (!paced(match, now)) {
+            return true;
+        }
+        int steps = match.clock.advance(now);
+        if (steps == 0) {
+            return true;
+        }
+        match.tickInputs = 0;
+        for (int i = 0; i < steps; i++) {
+            step(match);
+        }
+        int inputs = match.tickInputs;
+        match.lastTickInputs = inputs;
+        match.maxTickInputs = Math.max(match.maxTickInputs, inputs);
+        match.inputsProcessed += inputs;
+        pipeline.runTick(match);
+        // After 4 seconds, end match
+        if (match.gameOver && match.clock.simTimeMillis() - match.winnerAnnounceTime > 4000) {
+            matches.remove(matchId);
+            finishJournal(match);
+            broadcaster.close(matchId);
+            directory.release(matchId);
+            matchClosedListeners.forEach(listener -> listener.accept(matchId));
+            return false;
+        }
+        return true;
+    }
+
+    // Whether the match ticks now: always while anyone watches it (or a winner is shown),
+    // at the idle rate once nobody has for a while, and not at all after the hibernation
+    // grace period. Idle ticks run a single step, so the match's clock slows down rather
+    // than catching up in bursts.
+    private boolean paced(MatchState match, long now) {
+        if (match.gameOver || broadcaster.hasAudience(match.id)) {
+            match.lastAudienceNanos = now;
+            if (match.activity != Activity.ACTIVE) {
+                match.activity = Activity.ACTIVE;
+                match.clock.resync(now - match.clock.getStepNanos());
+            }
+            return true;
+        }
+        long unwatched = now - match.lastAudienceNanos;
+        if (unwatched < TimeUnit.MILLISECONDS.toNanos(idleAfterMs)) {
+            return true;
+        }
+        if (unwatched >= TimeUnit.MILLISECONDS.toNanos(hibernateAfterMs) && hibernate(match, now)) {
+            return false;
+        }
+        match.activity = Activity.IDLE;
+        if (now - match.nextIdleTickNanos < 0) {
+            return false;
+        }
+        match.nextIdleTickNanos = now + TimeUnit.SECONDS.toNanos(1) / Math.max(1, idleTickRateHz);
+        match.clock.resync(now - match.clock.getStepNanos());
+        return true;
+    }
+
+    // Unschedules the match, unless an input is waiting or someone started watching. The
+    // flag is set before both are checked, and enqueue() and the audience listener record
+    // theirs before checking the flag, so either racing with this is seen here or wakes
+    // the match.
+    private boolean hibernate(MatchState match, long now) {
+        synchronized (match) {
+            match.activity = Activity.HIBERNATING;
+            if (!match.inputs.isEmpty() || broadcaster.hasAudience(match.id)
+                || now - match.lastAudienceNanos < TimeUnit.MILLISECONDS.toNanos(hibernateAfterMs)) {
+                match.activity = Activity.IDLE;
+                return false;
+            }
+            tickScheduler.release(match.id);
+        }
+        logger.info("Match {} hibernating, nobody is watching", match.id);
+        return true;
+    }
+
+    // Puts a hibernating match back on a tick worker; it runs its next step right away
+    private void wake(MatchState match) {
+        if (match.activity != Activity.HIBERNATING) {
+            return;
+        }
+        synchronized (match) {
+            if (match.activity != Activity.HIBERNATING) {
+                return;
+            }
+            long now = timeSource.nanoTime();
+            match.lastAudienceNanos = now;
+            match.clock.resync(now - match.clock.getStepNanos());
+            match.activity = Activity.ACTIVE;
+            tickScheduler.assign(match.id);
+        }
+        logger.info("Match {} woke from hibernation", match.id);
+    }
+
+    private void enqueue(MatchState match, InputCommand command) {
+        match.inputs.add(command);
+        wake(match);
+    }
+
+    // One fixed simulation step through every step stage
+    void step(MatchState match) {
+        pipeline.runStep(match);
+        match.clock.completeStep();
+    }
+
+    // Game logic is paused while the winner is announced; only inputs and publishing run
+    private void movePlayers(MatchState match) {
+        if (match.gameOver) {
+            return;
+        }
+        double moveScale = match.clock.stepSeconds() * VELOCITY_TICK_RATE;
+        WallGeometry walls = match.walls;
+        boolean moved = false;
+        for (Player player : match.players.values()) {
+            if (player.alive && (player.vx != 0 || player.vy != 0)) {
+                double tryX = Math.max(20, Math.min(MAP_WIDTH - 20, player.x + player.vx * moveScale));
+                double tryY = Math.max(20, Math.min(MAP_HEIGHT - 20, player.y + player.vy * moveScale));
+                double newX = player.x;
+                double newY = player.y;
+                if (!collidesWithWall(walls, tryX, player.y)) {
+                    newX = tryX;
+                }
+                if (!collidesWithWall(walls, newX, tryY)) {
+                    newY = tryY;
                 }
+                moved |= newX != player.x || newY != player.y;
+                player.x = newX;
+                player.y = newY;
             }
-            // Remove finished matches
-            for (Long id : matchesToRemove) {
-                // Broadcast winner/gameOver state one last time before removal
-                broadcastGameState(id);
-                matches.remove(id);
+        }
+        if (moved) {
+            markDirty(match);
+        }
+    }
+
+    // One snapshot per tick at most, and none while nothing changed
+    private void publish(MatchState match) {
+        if (match.dirty || broadcaster.needsRefresh(match.id)) {
+            match.dirty = false;
+            match.publishesSent++;
+            broadcaster.publish(match.id, snapshot -> captureSnapshot(match, snapshot));
+        } else {
+            match.idleTicks++;
+        }
+    }
+
+    // Drains queued inputs into the match
+    private void applyInputs(MatchState match) {
+        int applied = 0;
+        InputCommand command;
+        while (applied < MAX_INPUTS_PER_STEP && (command = match.inputs.poll()) != null) {
+            MatchJournal journal = match.journal;
+            if (journal != null) {
+                journal(match, journal, command);
             }
-        }, 0, 16, TimeUnit.MILLISECONDS);
+            if (applyInput(match, command)) {
+                markDirty(match);
+            } else {
+                match.inputsRejected++;
+            }
+            applied++;
+        }
+        match.tickInputs += applied;
+    }
+
+    // Applies a bot's decision straight away, on the tick worker. Bots are simulated from
+    // the match seed like everything else, so their inputs aren't journaled.
+    boolean applyBotInput(MatchState match, InputCommand command) {
+        if (applyInput(match, command)) {
+            markDirty(match);
+            return true;
+        }
+        return false;
     }
+
+    private boolean applyInput(MatchState match, InputCommand command) {
+        if (command instanceof JoinCommand join) {
+            Player player = new Player(join.playerId(), join.username());
+            if (join.bot()) {
+                player.brain = new BotManager.Brain();
+            }
+            placeRandomly(match, player);
+            match.players.put(join.playerId(), player);
+            return true;
+        }
+        if (command instanceof LeaveCommand) {
+            return match.players.remove(command.playerId()) != null;
+        }
+        Player player = match.players.get(command.playerId());
+        if (player == null) {
+            return false;
+        }
+        if (command instanceof MoveCommand move) {
+            // Ignore movement during game over
+            if (match.gameOver || !player.alive) {
+                return false;
+            }
+            player.vx = move.vx();
+            player.vy = move.vy();
+            player.rotation = move.rotation();
+            return true;
+        }
+        if (command instanceof ShootCommand shoot) {
+            return !match.gameOver && player.alive && shoot(match, player, shoot.direction());
+        }
+        if (command instanceof RespawnCommand) {
+            respawn(match, player);
+            return true;
+        }
+        return false;
+    }
+
+    private void markDirty(MatchState match) {
+        match.dirty = true;
+        match.publishRequests++;
+    }
+
+    // Per-worker tick load and lag, for the admin engine endpoint
+    public List<MatchTickScheduler.WorkerStats> getWorkerStats() {
+        return tickScheduler.getWorkerStats();
+    }
+
+    // Per-match simulation clock counters
+    public Map<Long, ClockStats> getClockStats() {
+        Map<Long, ClockStats> stats = new TreeMap<>();
+        matches.forEach((matchId, match) -> stats.put(matchId, new ClockStats(match.clock.getTick(),
+            match.clock.simTimeMillis(), match.clock.getOverruns(), match.clock.getSkippedSteps(), match.activity)));
+        return stats;
+    }
+
+    public record ClockStats(long tick, long simTimeMillis, long overruns, long skippedSteps, Activity activity) {
+    }
+
+    public long countMatches(Activity activity) {
+        return matches.values().stream().filter(match -> match.activity == activity).count();
+    }
+
+    // Time spent in each tick stage, across all matches
+    public List<TickPipeline.StageStats> getStageStats() {
+        return pipeline.getStats();
+    }
+
+    // Per-match input volume, as applied by the tick workers
+    public Map<Long, InputStats> getInputStats() {
+        Map<Long, InputStats> stats = new TreeMap<>();
+        matches.forEach((matchId, match) -> stats.put(matchId, new InputStats(match.inputs.size(),
+            match.inputsProcessed, match.inputsRejected, match.lastTickInputs, match.maxTickInputs)));
+        return stats;
+    }
+
+    // Snapshots requested by state changes vs. actually published, per match
+    public Map<Long, PublishStats> getPublishStats() {
+        Map<Long, PublishStats> stats = new TreeMap<>();
+        matches.forEach((matchId, match) -> stats.put(matchId,
+            new PublishStats(match.publishRequests, match.publishesSent, match.idleTicks)));
+        return stats;
+    }
+
+    public record PublishStats(long requested, long sent, long idleTicks) {
+    }
+
+    public record InputStats(int queued, long processed, long rejected, int lastTick, int maxPerTick) {
+    }
+
+    // Player inputs; queued from any thread, applied by the match's tick worker.
+    // Typed by name so they can be forwarded to another node as JSON.
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+    @JsonSubTypes({
+        @JsonSubTypes.Type(value = JoinCommand.class, name = "join"),
+        @JsonSubTypes.Type(value = LeaveCommand.class, name = "leave"),
+        @JsonSubTypes.Type(value = MoveCommand.class, name = "move"),
+        @JsonSubTypes.Type(value = ShootCommand.class, name = "shoot"),
+        @JsonSubTypes.Type(value = RespawnCommand.class, name = "respawn")
+    })
+    public interface InputCommand {
+        int playerId();
+    }
+
+    // Bots join like players and are then driven by the bots stage of their match
+    public record JoinCommand(int playerId, String username, boolean bot) implements InputCommand {
+    }
+
+    public record LeaveCommand(int playerId) implements InputCommand {
+    }
+
+    public record MoveCommand(int playerId, double vx, double vy, double rotation) implements InputCommand {
+    }
+
+    public record ShootCommand(int playerId, double direction) implements InputCommand {
+    }
+
+    public record RespawnCommand(int playerId) implements InputCommand {
+    }
+
       // Simple Player class
     public static class Player {
         public int id;
@@ -127,14 +546,15 @@ public class GameEngineService {
         public double vx = 0; // velocity x
         public double vy = 0; // velocity y
         public int currentWeaponIndex = 0;
-        public long lastShootTime = 0;
+        // Simulation time of the last shot; far in the past so the first shot is never rate limited
+        public long lastShootTime = Long.MIN_VALUE / 2;
+        // Decision state of a bot; null for human players
+        public BotManager.Brain brain;
         
+        // Spawns in the middle of the map; the match places it at a random spot when it joins
         public Player(int id, String username) {
             this.id = id;
             this.username = username;
-            // Random spawn position
-            this.x = 100 + Math.random() * (MAP_WIDTH - 200);
-            this.y = 100 + Math.random() * (MAP_HEIGHT - 200);
             this.currentWeaponIndex = 0;
         }
         public Weapon getWeapon() {
@@ -142,266 +562,472 @@ public class GameEngineService {
         }
     }
     
-    // Simple Projectile class
-    public static class Projectile {
-        public String id = UUID.randomUUID().toString();
-        public double x, y;
-        public double direction;
-        public int playerId;
-        public long createTime = System.currentTimeMillis();
-        
-        public Projectile(double x, double y, double direction, int playerId) {
-            this.x = x;
-            this.y = y;
-            this.direction = direction;
-            this.playerId = playerId;
+    // Add a match, unless another node already runs it
+    public void createMatch(long matchId, String mapName) {
+        localMatch(matchId, mapName);
+    }
+
+    // The match if it runs on this node, creating it when no node has claimed it yet;
+    // null if another node owns it
+    private MatchState localMatch(long matchId, String mapName) {
+        MatchState match = matches.get(matchId);
+        if (match != null) {
+            return match;
         }
+        if (!directory.nodeId().equals(directory.claim(matchId))) {
+            return null;
+        }
+        // Built outside the map: geometry may come from the database and the journal is a new file
+        MatchState created = newMatchState(matchId, mapName != null ? mapName : MapRegistryService.DEFAULT_MAP_NAME);
+        MatchState existing = matches.putIfAbsent(matchId, created);
+        if (existing != null) {
+            discardJournal(created);
+            return existing;
+        }
+        // Only once the match is visible: a worker ticking an id it can't find unschedules it
+        tickScheduler.assign(matchId);
+        return created;
     }
-    
-    // Game state response
-    public static class GameState {
-        public Map<Integer, Player> players;
-        public Map<String, Projectile> projectiles;
-        
-        public GameState(Map<Integer, Player> players, Map<String, Projectile> projectiles) {
-            this.players = players;
-            this.projectiles = projectiles;
+
+    private MatchState newMatchState(long matchId, String mapName) {
+        MatchState match = new MatchState(matchId, mapName, new SimulationClock(tickRateHz, maxCatchUpSteps),
+            mapRegistry.getGeometry(mapName), ThreadLocalRandom.current().nextLong());
+        match.lastAudienceNanos = timeSource.nanoTime();
+        if (journalEnabled) {
+            openJournal(match);
         }
+        return match;
     }
-    
-    // Add a match
-    public void createMatch(long matchId, String mapName) {
-        matches.put(matchId, new MatchState(mapName));
+
+    // Never replaces an existing journal: a name already taken gets a -1, -2, ... suffix
+    private void openJournal(MatchState match) {
+        long startedAt = timeSource.currentTimeMillis();
+        String base = "match-" + match.id + "-"
+            + JOURNAL_TIMESTAMP.format(Instant.ofEpochMilli(startedAt).atZone(ZoneId.systemDefault()));
+        MatchJournal.Header header = new MatchJournal.Header(match.id, match.seed, tickRateHz, match.mapName,
+            startedAt);
+        for (int attempt = 0; attempt < JOURNAL_NAME_ATTEMPTS; attempt++) {
+            Path file = Paths.get(journalDir, base + (attempt == 0 ? "" : "-" + attempt) + ".journal");
+            try {
+                match.journal = MatchJournal.create(file, header, journalRegionSize);
+                return;
+            } catch (FileAlreadyExistsException e) {
+                // Try the next suffix
+            } catch (IOException e) {
+                logger.warn("Match {} runs without a journal", match.id, e);
+                return;
+            }
+        }
+        logger.warn("Match {} runs without a journal: {} and its suffixed names are all taken", match.id, base);
+    }
+
+    private void journal(MatchState match, MatchJournal journal, InputCommand command) {
+        try {
+            journal.append(match.clock.getTick(), command);
+        } catch (IOException e) {
+            logger.warn("Stopping journal of match {}", match.id, e);
+            closeJournal(match);
+        }
+    }
+
+    // Ends the journal with the final state, so a replay can tell whether it came out the same
+    private void finishJournal(MatchState match) {
+        MatchJournal journal = match.journal;
+        if (journal == null) {
+            return;
+        }
+        match.journal = null;
+        try {
+            journal.finish(match.clock.getTick(), stateHash(match));
+        } catch (IOException e) {
+            logger.warn("Failed to finish journal {}", journal.getFile(), e);
+        }
+    }
+
+    // Removes the journal of a match that lost the race to be created; nothing was appended yet
+    private void discardJournal(MatchState match) {
+        MatchJournal journal = match.journal;
+        if (journal == null) {
+            return;
+        }
+        closeJournal(match);
+        try {
+            Files.deleteIfExists(journal.getFile());
+        } catch (IOException e) {
+            logger.warn("Failed to delete unused journal {}", journal.getFile(), e);
+        }
+    }
+
+    private void closeJournal(MatchState match) {
+        MatchJournal journal = match.journal;
+        if (journal == null) {
+            return;
+        }
+        match.journal = null;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close journal {}", journal.getFile(), e);
+        }
+    }
+
+    // Journal files in the journal directory, newest first
+    public List<String> listJournals() throws IOException {
+        Path dir = Paths.get(journalDir);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal"))
+                .sorted(Comparator.comparing((Path file) -> file.toFile().lastModified()).reversed())
+                .map(file -> file.getFileName().toString())
+                .toList();
+        }
+    }
+
+    // Replays a file from the journal directory by name
+    public ReplayResult replayJournal(String name) throws IOException {
+        Path dir = Paths.get(journalDir).toAbsolutePath().normalize();
+        Path file = dir.resolve(name).normalize();
+        if (!dir.equals(file.getParent()) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("No journal named " + name);
+        }
+        return replay(file);
+    }
+
+    // Runs a journaled match again, as fast as the simulation goes: same seed, map and
+    // inputs at the same steps, no tick workers, publishing or journaling
+    public ReplayResult replay(Path file) throws IOException {
+        InputJournal.Reader reader = InputJournal.open(file);
+        MatchJournal.Header header = MatchJournal.readHeader(reader);
+        return replay(reader, header, mapRegistry.getGeometry(header.mapName()));
+    }
+
+    // Package-private so benchmarks can replay against a map compiled without the database
+    ReplayResult replay(InputJournal.Reader reader, MatchJournal.Header header, WallGeometry walls) {
+        TickPipeline<MatchState> stages = addSimulationStages(new TickPipeline<>());
+        for (Map.Entry<String, TickPipeline.Stage<MatchState>> stage : extraStepStages) {
+            stages.addStep(stage.getKey(), stage.getValue());
+        }
+        MatchState match = new MatchState(header.matchId(), header.mapName(), new SimulationClock(header.tickRateHz(), 1),
+            walls, header.seed());
+        long inputs = 0;
+        Long expectedHash = null;
+        long start = timeSource.nanoTime();
+        while (reader.next()) {
+            while (match.clock.getTick() < reader.tick()) {
+                stages.runStep(match);
+                match.clock.completeStep();
+            }
+            ByteBuffer payload = reader.payload();
+            if (payload.get(0) == MatchJournal.END) {
+                expectedHash = payload.getLong(1);
+                break;
+            }
+            InputCommand command = MatchJournal.readCommand(payload);
+            if (command != null) {
+                match.inputs.add(command);
+                inputs++;
+            }
+        }
+        // Inputs after the last step the live match ran are never applied
+        long elapsed = timeSource.nanoTime() - start;
+        long ticks = match.clock.getTick();
+        long hash = stateHash(match);
+        return new ReplayResult(header.matchId(), header.mapName(), header.seed(), ticks, inputs,
+            TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed > 0 ? ticks * 1e9 / elapsed : 0,
+            expectedHash, hash, expectedHash != null ? expectedHash == hash : null, stages.getStats());
+    }
+
+    // matchesRecording is null when the journal has no end record (the match never finished here)
+    public record ReplayResult(long matchId, String mapName, long seed, long ticks, long inputs, long elapsedMillis,
+                               double ticksPerSecond, Long recordedStateHash, long stateHash,
+                               Boolean matchesRecording, List<TickPipeline.StageStats> stages) {
+    }
+
+    // Hash of the replicated state: players by id, then projectiles in pool order
+    static long stateHash(MatchState match) {
+        long hash = match.clock.getTick();
+        for (Player player : new TreeMap<>(match.players).values()) {
+            hash = mix(hash, player.id);
+            hash = mix(hash, Double.doubleToLongBits(player.x));
+            hash = mix(hash, Double.doubleToLongBits(player.y));
+            hash = mix(hash, player.health);
+            hash = mix(hash, player.alive ? 1 : 0);
+            hash = mix(hash, player.currentWeaponIndex);
+        }
+        ProjectilePool pool = match.projectiles;
+        for (int i = 0; i < pool.size(); i++) {
+            hash = mix(hash, pool.id(i));
+            hash = mix(hash, Double.doubleToLongBits(pool.x(i)));
+            hash = mix(hash, Double.doubleToLongBits(pool.y(i)));
+        }
+        return mix(hash, match.gameOver ? 1 : 0);
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+    }
+
+    // Recompiles a map layout and hands the new geometry to every running match on that map
+    public WallGeometry reloadMap(String mapName) {
+        WallGeometry geometry = mapRegistry.reload(mapName);
+        for (MatchState match : matches.values()) {
+            if (mapName.equals(match.mapName)) {
+                match.walls = geometry;
+            }
+        }
+        return geometry;
     }
 
     // Add player to match
     public void addPlayer(long matchId, int playerId, String username) {
-        MatchState match = matches.get(matchId);
+        addPlayer(matchId, playerId, username, MapRegistryService.DEFAULT_MAP_NAME);
+    }
+
+    // Add player to match, creating it on the given map if no node runs it yet
+    public void addPlayer(long matchId, int playerId, String username, String mapName) {
+        join(matchId, new JoinCommand(playerId, username, false), mapName);
+    }
+
+    // Adds a bot, creating the match on the default map if no node runs it yet
+    public void addBot(long matchId, int botId, String username) {
+        join(matchId, new JoinCommand(botId, username, true), MapRegistryService.DEFAULT_MAP_NAME);
+    }
+
+    private void join(long matchId, JoinCommand join, String mapName) {
+        MatchState match = localMatch(matchId, mapName);
         if (match == null) {
-            // Auto-create match with default map if missing
-            match = new MatchState("Map1");
-            matches.put(matchId, match);
+            forward(matchId, mapName, join);
+            return;
         }
-        match.players.put(playerId, new Player(playerId, username));
-        broadcastGameState(matchId);
+        enqueue(match, join);
+        // The new client has no baseline to apply deltas to
+        broadcaster.requestKeyframe(matchId);
     }
 
     // Remove player from match
     public void removePlayer(long matchId, int playerId) {
-        MatchState match = matches.get(matchId);
-        if (match != null) {
-            match.players.remove(playerId);
-            broadcastGameState(matchId);
-        }
+        submit(matchId, new LeaveCommand(playerId));
     }
 
     // Move player in match
     public void movePlayer(long matchId, int playerId, double vx, double vy, double rotation) {
-        MatchState match = matches.get(matchId);
-        if (match != null && !match.gameOver) {
-            Player player = match.players.get(playerId);
-            if (player != null && player.alive) {
-                player.vx = vx;
-                player.vy = vy;
-                player.rotation = rotation;
-                System.out.println("Set velocity for player " + playerId + ": vx=" + vx + ", vy=" + vy);
-            } else {
-                System.out.println("Player not found or not alive: " + playerId);
-            }
-        } else if (match != null && match.gameOver) {
-            // Ignore movement during game over
-        } else {
-            System.out.println("Match not found: " + matchId);
-        }
+        submit(matchId, new MoveCommand(playerId, vx, vy, rotation));
     }
 
     // Player shoots in match
     public void playerShoot(long matchId, int playerId, double direction) {
-        MatchState match = matches.get(matchId);
-        if (match != null && !match.gameOver) {
-            Player player = match.players.get(playerId);
-            if (player != null && player.alive) {
-                Weapon weapon = player.getWeapon();
-                long now = System.currentTimeMillis();
-                if (now - player.lastShootTime < (long)(weapon.fireRate * 1000)) {
-                    return; // fire rate limit
-                }
-                player.lastShootTime = now;
-                for (int i = 0; i < weapon.bulletsPerShot; i++) {
-                    double spreadAngle = weapon.spread * (Math.random() - 0.5);
-                    double shotDir = direction + spreadAngle;
-                    Projectile bullet = new Projectile(player.x, player.y, shotDir, playerId);
-                    match.projectiles.put(bullet.id, bullet);
-                }
-                broadcastGameState(matchId);
-            }
-        }
+        submit(matchId, new ShootCommand(playerId, direction));
     }
 
-    // Update projectiles in match
-    public void updateProjectiles(long matchId) {
+    private void submit(long matchId, InputCommand command) {
         MatchState match = matches.get(matchId);
         if (match != null) {
-            long currentTime = System.currentTimeMillis();
-            match.projectiles.entrySet().removeIf(entry -> {
-                Projectile proj = entry.getValue();
-                if (currentTime - proj.createTime > 3000) {
-                    return true;
-                }
-                proj.x += Math.cos(proj.direction) * PROJECTILE_SPEED * 0.016;
-                proj.y += Math.sin(proj.direction) * PROJECTILE_SPEED * 0.016;
-                // Remove if out of bounds or hits wall
-                return proj.x < 0 || proj.x > MAP_WIDTH || proj.y < 0 || proj.y > MAP_HEIGHT || projectileHitsWall(proj.x, proj.y);
-            });
+            enqueue(match, command);
+        } else {
+            forward(matchId, null, command);
         }
     }
 
-    // Check collisions in match
-    public void checkCollisions(long matchId) {
-        MatchState match = matches.get(matchId);
-        if (match != null && !match.gameOver) {
-            match.projectiles.entrySet().removeIf(projEntry -> {
-                Projectile proj = projEntry.getValue();
-                for (Player player : match.players.values()) {
-                    if (player.id == proj.playerId || !player.alive) {
-                        continue;
-                    }
-                    double dx = proj.x - player.x;
-                    double dy = proj.y - player.y;
-                    if (Math.sqrt(dx * dx + dy * dy) < 25) {
-                        Player shooter = match.players.get(proj.playerId);
-                        if (shooter != null) {
-                            Weapon weapon = shooter.getWeapon();
-                            player.health -= weapon.damage;
-                            if (player.health <= 0) {
-                                player.alive = false;
-                                player.health = 0;
-                                player.deathTime = System.currentTimeMillis();
-                                // Gun Game: advance killer's weapon
-                                shooter.currentWeaponIndex++;
-                                if (shooter.currentWeaponIndex >= GUN_GAME_WEAPONS.size()) {
-                                    match.gameOver = true;
-                                    match.winnerName = shooter.username;
-                                    match.winnerAnnounceTime = System.currentTimeMillis();
-                                    System.out.println("WINNER: " + shooter.username + " (ID: " + shooter.id + ")");
-                                    shooter.currentWeaponIndex = GUN_GAME_WEAPONS.size() - 1;
-                                }
-                            }
-                        }
-                        return true;
-                    }
-                }
-                return false;
-            });
+    private void forward(long matchId, String mapName, InputCommand command) {
+        String owner = directory.owner(matchId);
+        if (owner != null && !owner.equals(directory.nodeId())) {
+            directory.forward(owner, new MatchDirectory.RoutedInput(matchId, mapName, command));
+        } else {
+            // Once per input for a match that ended or never existed, so not above debug
+            logger.debug("Match not found: {}", matchId);
         }
     }
 
-    // Respawn player in match
-    public void respawnPlayer(long matchId, int playerId) {
-        MatchState match = matches.get(matchId);
-        if (match != null) {
-            Player player = match.players.get(playerId);
-            if (player != null) {
-                player.health = MAX_HEALTH;
-                player.alive = true;
-                player.x = 100 + Math.random() * (MAP_WIDTH - 200);
-                player.y = 100 + Math.random() * (MAP_HEIGHT - 200);
-                broadcastGameState(matchId);
-            }
+    // Input another node received for one of our matches. Never forwarded again: if the
+    // match moved in the meantime the input is dropped rather than bounced between nodes.
+    private void acceptForwarded(MatchDirectory.RoutedInput input) {
+        MatchState match = input.command() instanceof JoinCommand
+            ? localMatch(input.matchId(), input.mapName())
+            : matches.get(input.matchId());
+        if (match == null) {
+            logger.debug("Dropping forwarded input for match {}, not owned here", input.matchId());
+            return;
+        }
+        enqueue(match, input.command());
+        if (input.command() instanceof JoinCommand) {
+            broadcaster.requestKeyframe(input.matchId());
         }
     }
 
-    // Broadcast game state for a match
-    private void broadcastGameState(long matchId) {
-        MatchState match = matches.get(matchId);
+    // This node's lease on the match ran out and another node may already run it
+    private void dropMatch(long matchId) {
+        MatchState match = matches.remove(matchId);
         if (match != null) {
-            try {
-                GameState state = new GameState(match.players, match.projectiles);
-                // Add winner/gameOver info if present
-                if (match.gameOver) {
-                    // Use reflection or extend GameState if needed for frontend
-                    // For now, just print
-                    System.out.println("Broadcasting WINNER: " + match.winnerName);
-                }
-                messagingTemplate.convertAndSend("/topic/game/state/" + matchId, state);
-            } catch (Exception e) {
-                System.err.println("Error broadcasting: " + e.getMessage());
-            }
+            closeJournal(match);
+            broadcaster.close(matchId);
+            matchClosedListeners.forEach(listener -> listener.accept(matchId));
         }
     }
-    
-    // Get game state
-    public GameState getGameState() {
-        return new GameState(players, projectiles);
-    }
-    
-    // Get players map (for GameBroadcastScheduler)
-    public Map<Integer, Player> getPlayerStates() {
-        return new ConcurrentHashMap<>(players);
-    }
-    
-    // Get projectiles map (for GameBroadcastScheduler)
-    public Map<String, Projectile> getActiveProjectiles() {
-        return new ConcurrentHashMap<>(projectiles);
+
+    // Spawns the player's weapon volley; returns false when the fire rate doesn't allow it yet
+    private boolean shoot(MatchState match, Player player, double direction) {
+        Weapon weapon = player.getWeapon();
+        long now = match.clock.simTimeMillis();
+        if (now - player.lastShootTime < (long)(weapon.fireRate * 1000)) {
+            return false; // fire rate limit
+        }
+        player.lastShootTime = now;
+        ProjectilePool pool = match.projectiles;
+        for (int i = 0; i < weapon.bulletsPerShot; i++) {
+            double spreadAngle = weapon.spread * (match.random.nextDouble() - 0.5);
+            double shotDir = direction + spreadAngle;
+            pool.spawn(player.x, player.y, shotDir, PROJECTILE_SPEED, player.id, match.clock.getTick());
+        }
+        return true;
     }
-    
-    // Cleanup dead players method (for GameBroadcastScheduler)
-    public void cleanupDeadPlayers(long matchId) {
-        MatchState match = matches.get(matchId);
-        if (match != null) {
-            long currentTime = System.currentTimeMillis();
-            for (Player player : match.players.values()) {
-                if (!player.alive && currentTime - player.deathTime > 3000) {
-                    respawnPlayer(matchId, player.id);
-                }
+
+    // Update projectiles in match
+    void updateProjectiles(MatchState match) {
+        if (match.gameOver) {
+            return;
+        }
+        long tick = match.clock.getTick();
+        long maxAgeTicks = PROJECTILE_LIFETIME_NANOS / match.clock.getStepNanos();
+        double seconds = match.clock.stepSeconds();
+        WallGeometry walls = match.walls;
+        ProjectilePool pool = match.projectiles;
+        if (pool.size() > 0) {
+            markDirty(match);
+        }
+        // Backwards, so swap-removal only moves already visited projectiles
+        for (int i = pool.size() - 1; i >= 0; i--) {
+            if (tick - pool.spawnTick(i) > maxAgeTicks) {
+                pool.remove(i);
+                continue;
+            }
+            pool.move(i, seconds);
+            double x = pool.x(i);
+            double y = pool.y(i);
+            // The whole move is swept, so a long step can't pass through a wall. A projectile
+            // stopped by a wall or the map edge can still hit a player before it; checkCollisions removes it.
+            double wallHit = projectileWallHit(walls, pool.prevX(i), pool.prevY(i), x, y);
+            if (wallHit <= 1) {
+                pool.stop(i, wallHit);
+            } else if (x < 0 || x > MAP_WIDTH || y < 0 || y > MAP_HEIGHT) {
+                pool.stop(i, 1);
             }
         }
     }
 
-    private void fetchWallsIfNeeded() {
-        // Fetch wall data every 10 seconds or if empty
-        if (wallRects.isEmpty() || System.currentTimeMillis() - lastWallFetch > 10000) {
-            try {
-                RestTemplate restTemplate = new RestTemplate();
-                List<Map<String, Object>> walls = restTemplate.getForObject(WALLS_API_URL, List.class);
-                if (walls != null) {
-                    wallRects = walls;
-                    lastWallFetch = System.currentTimeMillis();
+    // Hits the first player each projectile's last move passed within hit range of; the
+    // move already ends at any wall in the way, so that player is also hit before the wall
+    void checkCollisions(MatchState match) {
+        if (match.gameOver) {
+            return;
+        }
+        match.indexPlayers();
+        SpatialGrid grid = match.playerGrid;
+        ProjectilePool pool = match.projectiles;
+        for (int p = pool.size() - 1; p >= 0; p--) {
+            int ownerId = pool.owner(p);
+            double x0 = pool.prevX(p);
+            double y0 = pool.prevY(p);
+            double x1 = pool.x(p);
+            double y1 = pool.y(p);
+            // Only players near the move's midpoint can be within hit range of some point of it
+            double halfLength = Math.hypot(x1 - x0, y1 - y0) / 2;
+            int candidates = grid.query((x0 + x1) / 2, (y0 + y1) / 2, halfLength + PROJECTILE_HIT_RADIUS);
+            int[] hits = grid.results();
+            Player target = null;
+            double earliest = Sweep.NONE;
+            for (int i = 0; i < candidates; i++) {
+                Player player = match.indexedPlayers[hits[i]];
+                if (player.id == ownerId || !player.alive) {
+                    continue;
                 }
-            } catch (Exception e) {
-                System.err.println("Failed to fetch wall data: " + e.getMessage());
+                double t = Sweep.circle(x0, y0, x1, y1, player.x, player.y, PROJECTILE_HIT_RADIUS);
+                if (t < earliest) {
+                    earliest = t;
+                    target = player;
+                }
+            }
+            if (target != null) {
+                applyHit(match, target, match.players.get(ownerId));
+                pool.remove(p);
+            } else if (pool.stopped(p)) {
+                pool.remove(p);
             }
         }
     }
 
-    private boolean collidesWithWall(double x, double y) {
-        for (Map<String, Object> wall : wallRects) {
-            double wx = ((Number) wall.get("x")).doubleValue();
-            double wy = ((Number) wall.get("y")).doubleValue();
-            double ww = ((Number) wall.get("width")).doubleValue();
-            double wh = ((Number) wall.get("height")).doubleValue();
-            // AABB vs circle collision
-            double closestX = Math.max(wx, Math.min(x, wx + ww));
-            double closestY = Math.max(wy, Math.min(y, wy + wh));
-            double dx = x - closestX;
-            double dy = y - closestY;
-            if (dx * dx + dy * dy < PLAYER_RADIUS * PLAYER_RADIUS) {
-                return true;
+    private void applyHit(MatchState match, Player player, Player shooter) {
+        if (shooter == null) {
+            return;
+        }
+        Weapon weapon = shooter.getWeapon();
+        markDirty(match);
+        player.health -= weapon.damage;
+        if (player.health <= 0) {
+            player.alive = false;
+            player.health = 0;
+            player.deathTime = match.clock.simTimeMillis();
+            // Gun Game: advance killer's weapon
+            shooter.currentWeaponIndex++;
+            if (shooter.currentWeaponIndex >= GUN_GAME_WEAPONS.size()) {
+                match.gameOver = true;
+                match.winnerName = shooter.username;
+                match.winnerAnnounceTime = match.clock.simTimeMillis();
+                logger.info("Winner: {} (ID: {})", shooter.username, shooter.id);
+                shooter.currentWeaponIndex = GUN_GAME_WEAPONS.size() - 1;
             }
         }
-        return false;
     }
 
-    private boolean projectileHitsWall(double x, double y) {
-        for (Map<String, Object> wall : wallRects) {
-            double wx = ((Number) wall.get("x")).doubleValue();
-            double wy = ((Number) wall.get("y")).doubleValue();
-            double ww = ((Number) wall.get("width")).doubleValue();
-            double wh = ((Number) wall.get("height")).doubleValue();
-            if (x >= wx && x <= wx + ww && y >= wy && y <= wy + wh) {
-                return true;
+    // Respawn player in match
+    public void respawnPlayer(long matchId, int playerId) {
+        submit(matchId, new RespawnCommand(playerId));
+    }
+
+    private void respawn(MatchState match, Player player) {
+        player.health = MAX_HEALTH;
+        player.alive = true;
+        placeRandomly(match, player);
+    }
+
+    private void placeRandomly(MatchState match, Player player) {
+        player.x = 100 + match.random.nextDouble() * (MAP_WIDTH - 200);
+        player.y = 100 + match.random.nextDouble() * (MAP_HEIGHT - 200);
+    }
+
+    void captureSnapshot(MatchState match, MatchSnapshot snapshot) {
+        snapshot.reset(match.clock.getTick(), match.gameOver, match.winnerName);
+        for (Player player : match.players.values()) {
+            snapshot.addPlayer(player.id, player.username, player.x, player.y, player.rotation,
+                player.health, player.alive, player.currentWeaponIndex);
+        }
+        ProjectilePool pool = match.projectiles;
+        for (int i = 0; i < pool.size(); i++) {
+            snapshot.addProjectile(pool.id(i), pool.x(i), pool.y(i), pool.direction(i), pool.owner(i));
+        }
+    }
+
+    // Respawns players that have been dead for 3 seconds
+    private void cleanupDeadPlayers(MatchState match) {
+        if (match.gameOver) {
+            return;
+        }
+        long currentTime = match.clock.simTimeMillis();
+        for (Player player : match.players.values()) {
+            if (!player.alive && currentTime - player.deathTime > 3000) {
+                respawn(match, player);
+                markDirty(match);
             }
         }
-        return false;
     }
-}
+
+    boolean collidesWithWall(WallGeometry walls, double x, double y) {
+        return walls.intersectsCircle(x, y, PLAYER_RADIUS);
+    }
+
+    // Fraction of a projectile's move at which it enters a wall, or Sweep.NONE
+    double projectileWallHit(WallGeometry walls, double x0, double y0, double x1, double y1) {
+        return walls.sweep(x0, y0, x1, y1);
+    }
+}
\ No newline at end of file
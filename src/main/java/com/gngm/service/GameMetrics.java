@@ -0,0 +1,150 @@
+package com.gngm.service;
+
+import com.gngm.controller.GameStreamHandler;
+import com.gngm.engine.LaneExecutor;
+import com.gngm.engine.MatchTickScheduler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Game engine meters for /actuator/prometheus. Tick duration and lag are histograms
+// fed by the tick workers; everything else is read from the engine when scraped.
+@Component
+public class GameMetrics implements MeterBinder {
+
+    private final GameEngineService gameEngine;
+    private final GameStateBroadcaster broadcaster;
+    private final BotManager botManager;
+    private final GameStreamHandler gameStreamHandler;
+    private final MatchTickScheduler tickScheduler;
+    private final LaneExecutor inboundLanes;
+    private final AtomicInteger stompSessions = new AtomicInteger();
+
+    @Autowired
+    public GameMetrics(GameEngineService gameEngine, GameStateBroadcaster broadcaster, BotManager botManager,
+                       GameStreamHandler gameStreamHandler, MatchTickScheduler tickScheduler,
+                       LaneExecutor inboundLanes) {
+        this.gameEngine = gameEngine;
+        this.broadcaster = broadcaster;
+        this.botManager = botManager;
+        this.gameStreamHandler = gameStreamHandler;
+        this.tickScheduler = tickScheduler;
+        this.inboundLanes = inboundLanes;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Duration period = Duration.ofNanos(tickScheduler.getPeriodNanos());
+        Timer workerTicks = Timer.builder("gngm.tick.duration")
+            .description("Time a tick worker spends ticking all of its matches")
+            .publishPercentileHistogram()
+            .serviceLevelObjectives(period)
+            .register(registry);
+        Timer tickLag = Timer.builder("gngm.tick.lag")
+            .description("How late a tick worker started its tick")
+            .publishPercentileHistogram()
+            .serviceLevelObjectives(period)
+            .register(registry);
+        Timer matchTicks = Timer.builder("gngm.match.tick.duration")
+            .description("Time one match tick takes, all pipeline stages included")
+            .publishPercentileHistogram()
+            .register(registry);
+        tickScheduler.setObserver(new MatchTickScheduler.TickObserver() {
+            @Override
+            public void workerTick(long lagNanos, long durationNanos) {
+                workerTicks.record(durationNanos, TimeUnit.NANOSECONDS);
+                tickLag.record(lagNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void matchTick(long matchId, long costNanos) {
+                matchTicks.record(costNanos, TimeUnit.NANOSECONDS);
+            }
+        });
+
+        Gauge.builder("gngm.matches.total", gameEngine.matches, Map::size)
+            .description("Matches running on this node, whatever their activity")
+            .register(registry);
+        for (GameEngineService.Activity activity : GameEngineService.Activity.values()) {
+            Gauge.builder("gngm.matches", gameEngine, engine -> engine.countMatches(activity))
+                .description("Matches by tick activity; idle and hibernating ones have nobody watching")
+                .tag("activity", activity.name().toLowerCase())
+                .register(registry);
+        }
+        Gauge.builder("gngm.players", gameEngine, GameMetrics::players)
+            .register(registry);
+        Gauge.builder("gngm.projectiles", gameEngine, GameMetrics::projectiles)
+            .register(registry);
+        Gauge.builder("gngm.bots", botManager, BotManager::getBotCount)
+            .register(registry);
+
+        FunctionCounter.builder("gngm.broadcast.messages", broadcaster, GameStateBroadcaster::getMessagesSent)
+            .description("Snapshot messages sent, all matches and transports")
+            .register(registry);
+        FunctionCounter.builder("gngm.broadcast.bytes", broadcaster, GameStateBroadcaster::getBytesSent)
+            .baseUnit("bytes")
+            .register(registry);
+
+        for (int i = 0; i < inboundLanes.getLaneCount(); i++) {
+            int lane = i;
+            String tag = String.valueOf(lane);
+            Gauge.builder("gngm.ws.inbound.queued", inboundLanes, l -> l.getQueued(lane))
+                .description("Client messages waiting on an inbound lane")
+                .tag("lane", tag)
+                .register(registry);
+            FunctionCounter.builder("gngm.ws.inbound.shed", inboundLanes, l -> l.getShed(lane))
+                .description("Client moves dropped because their lane had too many messages waiting")
+                .tag("lane", tag)
+                .register(registry);
+            FunctionCounter.builder("gngm.ws.inbound.rejected", inboundLanes, l -> l.getRejected(lane))
+                .description("Client joins, shots and respawns refused because their lane stayed full")
+                .tag("lane", tag)
+                .register(registry);
+        }
+
+        Gauge.builder("gngm.websocket.sessions", stompSessions, AtomicInteger::get)
+            .tag("transport", "stomp")
+            .register(registry);
+        Gauge.builder("gngm.websocket.sessions", gameStreamHandler, h -> h.getStats().sessions())
+            .tag("transport", "game-stream")
+            .register(registry);
+    }
+
+    @EventListener
+    public void handleConnected(SessionConnectedEvent event) {
+        stompSessions.incrementAndGet();
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        stompSessions.decrementAndGet();
+    }
+
+    private static double players(GameEngineService engine) {
+        int players = 0;
+        for (GameEngineService.MatchState match : engine.matches.values()) {
+            players += match.players.size();
+        }
+        return players;
+    }
+
+    private static double projectiles(GameEngineService engine) {
+        int projectiles = 0;
+        for (GameEngineService.MatchState match : engine.matches.values()) {
+            projectiles += match.projectiles.size();
+        }
+        return projectiles;
+    }
+}
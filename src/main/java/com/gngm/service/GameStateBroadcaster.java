@@ -0,0 +1,559 @@
+package com.gngm.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gngm.engine.BinarySnapshotWriter;
+import com.gngm.engine.DeltaTracker;
+import com.gngm.engine.FanOutSnapshotWriter;
+import com.gngm.engine.InterestFilter;
+import com.gngm.engine.JsonSnapshotWriter;
+import com.gngm.engine.LatencyHistogram;
+import com.gngm.engine.MatchSnapshot;
+import com.gngm.engine.SnapshotWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+// Publishes match snapshots as keyframes and deltas against the previous message, and
+// keeps per-match bandwidth counters. Clients pick the wire format by topic:
+// /topic/game/state/{matchId} carries JSON, /topic/game/state-bin/{matchId} the compact
+// binary encoding (BinarySnapshotWriter). A format is only encoded while someone is
+// subscribed to it, and both share one delta baseline.
+//
+// Players in a match should instead subscribe to their own session's
+// /user/queue/game/state (or state-bin): that stream only carries entities within the
+// view radius of their player, with its own delta baseline, and every
+// summary-interval messages /user/queue/game/radar (or radar-bin) lists the players
+// outside it with position and alive flag only. The same per-player stream is also
+// available over a raw /game-stream WebSocket (GameStreamSession), without the broker.
+//
+// The tick thread only captures state into a pooled snapshot buffer and hands it
+// over; delta encoding and sends happen on the snapshot publisher executor, one
+// drain task per match at a time. If the publisher falls behind, the newest
+// snapshot replaces the one still waiting.
+//
+// Match-wide topic messages go through the BroadcastBackend, so with Redis they reach
+// sessions on any node; per-player streams are sent to sessions on this node.
+@Service
+public class GameStateBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameStateBroadcaster.class);
+
+    public static final String JSON_TOPIC = "/topic/game/state/";
+    public static final String BINARY_TOPIC = "/topic/game/state-bin/";
+    public static final String VIEW_QUEUE = "/queue/game/state";
+    public static final String BINARY_VIEW_QUEUE = "/queue/game/state-bin";
+    public static final String RADAR_QUEUE = "/queue/game/radar";
+    public static final String BINARY_RADAR_QUEUE = "/queue/game/radar-bin";
+    private static final String USER_PREFIX = "/user";
+
+    private static final int RADAR_FIELDS = SnapshotWriter.FIELD_X | SnapshotWriter.FIELD_Y | SnapshotWriter.FIELD_ALIVE;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final SubscriptionRegistry subscriptions;
+    private final BroadcastBackend backend;
+    private final Executor publisher;
+    private final Map<Long, MatchChannel> channels = new ConcurrentHashMap<>();
+    // sessionId -> match the session's player is viewing
+    private final Map<String, Long> viewerMatches = new ConcurrentHashMap<>();
+    // Publisher-side cost per published snapshot: encoding (deltas, interest filtering) vs. handing to the broker
+    private final LatencyHistogram encodeTimings = new LatencyHistogram();
+    private final LatencyHistogram sendTimings = new LatencyHistogram();
+    // Every message handed to a broker, Redis or game stream, across all matches (closed ones too)
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private volatile LongConsumer audienceListener = matchId -> { };
+
+    @Value("${game.snapshot.keyframe-interval:60}")
+    private int keyframeInterval;
+
+    @Value("${game.interest.view-radius:800}")
+    private double viewRadius;
+
+    @Value("${game.interest.summary-interval:30}")
+    private int summaryInterval;
+
+    @Autowired
+    public GameStateBroadcaster(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper,
+                                SubscriptionRegistry subscriptions, BroadcastBackend backend,
+                                @Qualifier("snapshotPublisher") Executor publisher) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.subscriptions = subscriptions;
+        this.backend = backend;
+        this.publisher = publisher;
+        backend.onRemoteSubscribe(this::topicSubscribed);
+    }
+
+    // Called on the tick thread: captures the match state into a free buffer and queues
+    // it for the publisher. The buffer isn't touched by the tick thread again.
+    public void publish(long matchId, Consumer<MatchSnapshot> capture) {
+        MatchChannel channel = channels.computeIfAbsent(matchId, id -> new MatchChannel());
+        channel.refresh = false;
+        if (channel.viewers.isEmpty() && !backend.hasSubscribers(JSON_TOPIC + matchId)
+            && !backend.hasSubscribers(BINARY_TOPIC + matchId)) {
+            // Nobody to diff against; whoever subscribes next starts from a keyframe
+            channel.stream.tracker.requestKeyframe();
+            return;
+        }
+        MatchSnapshot snapshot = channel.acquire();
+        capture.accept(snapshot);
+        MatchSnapshot stale = channel.pending.getAndSet(snapshot);
+        if (stale != null) {
+            channel.superseded++;
+            channel.free.add(stale);
+        }
+        schedule(matchId, channel);
+    }
+
+    private void schedule(long matchId, MatchChannel channel) {
+        if (channel.scheduled.compareAndSet(false, true)) {
+            publisher.execute(() -> drain(matchId, channel));
+        }
+    }
+
+    // Publisher side: encodes and sends whatever snapshot is waiting, until none is
+    private void drain(long matchId, MatchChannel channel) {
+        MatchSnapshot snapshot;
+        while ((snapshot = channel.pending.getAndSet(null)) != null) {
+            synchronized (channel) {
+                long start = System.nanoTime();
+                channel.sendNanos = 0;
+                try {
+                    encodeAndSend(matchId, channel, snapshot);
+                } catch (Exception e) {
+                    logger.error("Error broadcasting match {}: {}", matchId, e.getMessage());
+                }
+                encodeTimings.record(System.nanoTime() - start - channel.sendNanos);
+                sendTimings.record(channel.sendNanos);
+            }
+            channel.free.add(snapshot);
+        }
+        channel.scheduled.set(false);
+        // A snapshot may have been queued after the last poll but before the flag was cleared
+        if (channel.pending.get() != null) {
+            schedule(matchId, channel);
+        }
+    }
+
+    private void encodeAndSend(long matchId, MatchChannel channel, MatchSnapshot snapshot) {
+        boolean json = backend.hasSubscribers(JSON_TOPIC + matchId);
+        boolean binary = backend.hasSubscribers(BINARY_TOPIC + matchId);
+        if (json || binary) {
+            publishMatch(matchId, channel, snapshot, json, binary);
+        } else {
+            channel.stream.tracker.requestKeyframe();
+        }
+        if (!channel.viewers.isEmpty()) {
+            publishViews(channel, snapshot);
+        }
+    }
+
+    private void publishMatch(long matchId, MatchChannel channel, MatchSnapshot snapshot, boolean json, boolean binary) {
+        SnapshotStream stream = channel.stream;
+        boolean keyframe = stream.write(snapshot, json, binary);
+        if (json) {
+            send(channel, JSON_TOPIC + matchId, stream.json().toByteArray(), MimeTypeUtils.APPLICATION_JSON);
+        }
+        if (binary) {
+            send(channel, BINARY_TOPIC + matchId, stream.binary().toByteArray(), MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        }
+        channel.record(snapshot, keyframe, json, binary);
+    }
+
+    // One filtered stream per player session, from a single spatial index of the snapshot
+    private void publishViews(MatchChannel channel, MatchSnapshot snapshot) {
+        channel.interest.index(snapshot);
+        boolean radarDue = ++channel.sinceRadar >= summaryInterval;
+        if (radarDue) {
+            channel.sinceRadar = 0;
+        }
+        for (Viewer viewer : channel.viewers.values()) {
+            GameStreamSession gameStream = viewer.gameStream;
+            boolean binary;
+            boolean json;
+            if (gameStream != null) {
+                binary = gameStream.isBinary();
+                json = !binary && gameStream.isOpen();
+                binary &= gameStream.isOpen();
+            } else {
+                binary = subscriptions.isSubscribed(viewer.sessionId, USER_PREFIX + BINARY_VIEW_QUEUE);
+                json = !binary && subscriptions.isSubscribed(viewer.sessionId, USER_PREFIX + VIEW_QUEUE);
+            }
+            if (!json && !binary) {
+                viewer.stream.tracker.requestKeyframe();
+                continue;
+            }
+            if (binary != viewer.binary) {
+                // Switching formats: the client has no baseline in the new one
+                viewer.binary = binary;
+                viewer.stream.tracker.requestKeyframe();
+            }
+            channel.interest.filter(viewer.playerId, viewer.view, viewer.distant);
+            boolean keyframe = viewer.stream.write(viewer.view, json, binary);
+            byte[] payload = viewer.stream.toByteArray(binary);
+            if (gameStream != null) {
+                gameStream.offer(payload, keyframe ? SnapshotWriter.MessageType.KEYFRAME : SnapshotWriter.MessageType.DELTA);
+                count(payload);
+            } else {
+                sendToSession(channel, viewer.sessionId, binary ? BINARY_VIEW_QUEUE : VIEW_QUEUE, payload, binary);
+            }
+            channel.viewerMessages++;
+            channel.viewerBytesSent += payload.length;
+
+            if (radarDue) {
+                writeRadar(viewer.distant, binary ? viewer.stream.binary() : viewer.stream.json());
+                payload = viewer.stream.toByteArray(binary);
+                if (gameStream != null) {
+                    gameStream.offer(payload, SnapshotWriter.MessageType.RADAR);
+                    count(payload);
+                } else {
+                    sendToSession(channel, viewer.sessionId, binary ? BINARY_RADAR_QUEUE : RADAR_QUEUE, payload, binary);
+                }
+                channel.viewerBytesSent += payload.length;
+            }
+        }
+    }
+
+    // Radar messages are always complete, so they bypass the delta tracker
+    private static void writeRadar(MatchSnapshot distant, SnapshotWriter out) {
+        out.begin(SnapshotWriter.MessageType.RADAR, distant);
+        out.beginSection(SnapshotWriter.Section.PLAYERS);
+        for (int n = 0; n < distant.playerCount(); n++) {
+            out.player(distant, distant.player(n), RADAR_FIELDS);
+        }
+        out.endSection();
+        out.beginSection(SnapshotWriter.Section.PROJECTILES);
+        out.endSection();
+        out.end();
+    }
+
+    // Starts a filtered stream for the player joining from this session
+    public void addViewer(long matchId, int playerId, String sessionId) {
+        if (sessionId != null) {
+            addViewer(matchId, new Viewer(sessionId, playerId, null));
+        }
+    }
+
+    // Starts a filtered stream over a raw /game-stream connection
+    public void addViewer(long matchId, int playerId, GameStreamSession gameStream) {
+        Viewer viewer = new Viewer(gameStream.getId(), playerId, gameStream);
+        gameStream.onKeyframeNeeded(() -> {
+            viewer.stream.tracker.requestKeyframe();
+            MatchChannel channel = channels.get(matchId);
+            if (channel != null) {
+                channel.refresh = true;
+            }
+        });
+        addViewer(matchId, viewer);
+    }
+
+    private void addViewer(long matchId, Viewer viewer) {
+        Long previous = viewerMatches.put(viewer.sessionId, matchId);
+        if (previous != null && previous != matchId) {
+            removeViewer(previous, viewer.sessionId);
+        }
+        MatchChannel channel = channels.computeIfAbsent(matchId, id -> new MatchChannel());
+        channel.viewers.put(viewer.sessionId, viewer);
+        channel.refresh = true;
+        audienceListener.accept(matchId);
+    }
+
+    public void removeViewer(String sessionId) {
+        Long matchId = viewerMatches.remove(sessionId);
+        if (matchId != null) {
+            removeViewer(matchId, sessionId);
+        }
+    }
+
+    private void removeViewer(long matchId, String sessionId) {
+        MatchChannel channel = channels.get(matchId);
+        if (channel != null) {
+            channel.viewers.remove(sessionId);
+        }
+    }
+
+    // The next message for this match will be a full keyframe
+    public void requestKeyframe(long matchId) {
+        MatchChannel channel = channels.get(matchId);
+        if (channel != null) {
+            channel.stream.tracker.requestKeyframe();
+            channel.refresh = true;
+        }
+    }
+
+    // True while anyone receives this match: a player's stream here, or a topic subscriber on any node
+    public boolean hasAudience(long matchId) {
+        MatchChannel channel = channels.get(matchId);
+        return channel != null && !channel.viewers.isEmpty()
+            || backend.hasSubscribers(JSON_TOPIC + matchId) || backend.hasSubscribers(BINARY_TOPIC + matchId);
+    }
+
+    // Told the match id whenever a viewer or topic subscriber arrives, e.g. to wake the match
+    public void onAudience(LongConsumer listener) {
+        this.audienceListener = listener;
+    }
+
+    // True when a stream of this match needs a message even if the match state didn't change
+    public boolean needsRefresh(long matchId) {
+        MatchChannel channel = channels.get(matchId);
+        return channel != null && channel.refresh;
+    }
+
+    // New subscribers have no baseline to apply deltas to
+    @EventListener
+    public void handleSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null) {
+            return;
+        }
+        if (destination.startsWith(USER_PREFIX + VIEW_QUEUE)) {
+            Long viewerMatch = accessor.getSessionId() != null ? viewerMatches.get(accessor.getSessionId()) : null;
+            MatchChannel channel = viewerMatch != null ? channels.get(viewerMatch) : null;
+            Viewer viewer = channel != null ? channel.viewers.get(accessor.getSessionId()) : null;
+            if (viewer != null) {
+                viewer.stream.tracker.requestKeyframe();
+                channel.refresh = true;
+            }
+            return;
+        }
+        topicSubscribed(destination);
+    }
+
+    // Subscribed here or, with the Redis backend, on another node
+    private void topicSubscribed(String destination) {
+        String matchId = null;
+        if (destination.startsWith(JSON_TOPIC)) {
+            matchId = destination.substring(JSON_TOPIC.length());
+        } else if (destination.startsWith(BINARY_TOPIC)) {
+            matchId = destination.substring(BINARY_TOPIC.length());
+        }
+        if (matchId != null) {
+            try {
+                long id = Long.parseLong(matchId);
+                requestKeyframe(id);
+                audienceListener.accept(id);
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring subscription to {}", destination);
+            }
+        }
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        removeViewer(event.getSessionId());
+    }
+
+    public void close(long matchId) {
+        channels.remove(matchId);
+        viewerMatches.values().removeIf(id -> id == matchId);
+    }
+
+    public Map<Long, BroadcastStats> getStats() {
+        Map<Long, BroadcastStats> stats = new TreeMap<>();
+        channels.forEach((matchId, channel) -> stats.put(matchId, channel.stats()));
+        return stats;
+    }
+
+    // Publisher thread time per snapshot, kept apart from the tick stage timings
+    public PublisherStats getPublisherStats() {
+        return new PublisherStats(encodeTimings.getCount(), encodeTimings.getMeanNanos(),
+            encodeTimings.percentileNanos(0.99), encodeTimings.getMaxNanos(), sendTimings.getMeanNanos(),
+            sendTimings.percentileNanos(0.99), sendTimings.getMaxNanos());
+    }
+
+    private void send(MatchChannel channel, String destination, byte[] payload, MimeType contentType) {
+        long start = System.nanoTime();
+        backend.send(destination, payload, contentType);
+        channel.sendNanos += System.nanoTime() - start;
+        count(payload);
+    }
+
+    // Sessions aren't authenticated, so the user destination is addressed by session id
+    private void sendToSession(MatchChannel channel, String sessionId, String destination, byte[] payload, boolean binary) {
+        long start = System.nanoTime();
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setContentType(binary ? MimeTypeUtils.APPLICATION_OCTET_STREAM : MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(USER_PREFIX + "/" + sessionId + destination,
+            MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+        channel.sendNanos += System.nanoTime() - start;
+        count(payload);
+    }
+
+    private void count(byte[] payload) {
+        messagesSent.increment();
+        bytesSent.add(payload.length);
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public record BroadcastStats(long keyframes, long deltas, long bytesSent, long bytesSaved,
+                                 long binaryMessages, long binaryBytesSent,
+                                 int viewers, long viewerMessages, long viewerBytesSent, long superseded) {
+    }
+
+    public record PublisherStats(long snapshots, long encodeMeanNanos, long encodeP99Nanos, long encodeMaxNanos,
+                                 long sendMeanNanos, long sendP99Nanos, long sendMaxNanos) {
+    }
+
+    // A delta baseline plus the encoders fed from it; encoders are created on first use
+    private class SnapshotStream {
+        final DeltaTracker tracker = new DeltaTracker(keyframeInterval);
+        final FanOutSnapshotWriter writer = new FanOutSnapshotWriter();
+        private JsonSnapshotWriter jsonWriter;
+        private BinarySnapshotWriter binaryWriter;
+
+        boolean write(MatchSnapshot snapshot, boolean json, boolean binary) {
+            if (json && binary) {
+                writer.setTargets(json(), binary());
+            } else {
+                writer.setTargets(json ? json() : binary());
+            }
+            return tracker.write(snapshot, writer);
+        }
+
+        byte[] toByteArray(boolean binary) {
+            return binary ? binary().toByteArray() : json().toByteArray();
+        }
+
+        JsonSnapshotWriter json() {
+            if (jsonWriter == null) {
+                jsonWriter = new JsonSnapshotWriter(objectMapper.getFactory());
+            }
+            return jsonWriter;
+        }
+
+        BinarySnapshotWriter binary() {
+            if (binaryWriter == null) {
+                binaryWriter = new BinarySnapshotWriter(1024);
+            }
+            return binaryWriter;
+        }
+    }
+
+    private class Viewer {
+        final String sessionId;
+        final int playerId;
+        // Raw game stream connection, or null for a STOMP session's user destinations
+        final GameStreamSession gameStream;
+        final SnapshotStream stream = new SnapshotStream();
+        final MatchSnapshot view = new MatchSnapshot();
+        final MatchSnapshot distant = new MatchSnapshot();
+        boolean binary;
+
+        Viewer(String sessionId, int playerId, GameStreamSession gameStream) {
+            this.sessionId = sessionId;
+            this.playerId = playerId;
+            this.gameStream = gameStream;
+            this.binary = gameStream != null && gameStream.isBinary();
+        }
+    }
+
+    private class MatchChannel {
+        // Snapshot buffers: filled by the tick thread, then owned by the publisher until returned
+        final Queue<MatchSnapshot> free = new ConcurrentLinkedQueue<>();
+        final AtomicReference<MatchSnapshot> pending = new AtomicReference<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final SnapshotStream stream = new SnapshotStream();
+        final InterestFilter interest = new InterestFilter(GameEngineService.MAP_WIDTH, GameEngineService.MAP_HEIGHT, viewRadius);
+        final Map<String, Viewer> viewers = new ConcurrentHashMap<>();
+        int sinceRadar;
+        // Set when a subscriber needs a keyframe; cleared by the next publish
+        volatile boolean refresh;
+        // Time spent in broker sends while encoding the current snapshot
+        long sendNanos;
+
+        // Per-entity keyframe cost, used to estimate what a delta saved
+        double keyframeOverhead;
+        double bytesPerPlayer;
+        double bytesPerProjectile;
+
+        volatile long keyframes;
+        volatile long deltas;
+        volatile long bytesSent;
+        volatile long bytesSaved;
+        volatile long binaryMessages;
+        volatile long binaryBytesSent;
+        volatile long viewerMessages;
+        volatile long viewerBytesSent;
+        volatile long superseded;
+
+        MatchSnapshot acquire() {
+            MatchSnapshot snapshot = free.poll();
+            return snapshot != null ? snapshot : new MatchSnapshot();
+        }
+
+        void record(MatchSnapshot snapshot, boolean keyframe, boolean json, boolean binary) {
+            if (keyframe) {
+                keyframes++;
+            } else {
+                deltas++;
+            }
+            if (binary) {
+                binaryMessages++;
+                binaryBytesSent += stream.binary().size();
+            }
+            if (!json) {
+                return;
+            }
+            JsonSnapshotWriter writer = stream.json();
+            int size = writer.size();
+            int players = snapshot.playerCount();
+            int projectiles = snapshot.projectileCount();
+            bytesSent += size;
+            if (keyframe) {
+                long playerBytes = writer.sectionBytes(SnapshotWriter.Section.PLAYERS);
+                long projectileBytes = writer.sectionBytes(SnapshotWriter.Section.PROJECTILES);
+                keyframeOverhead = size - playerBytes - projectileBytes;
+                if (players > 0) {
+                    bytesPerPlayer = (double) playerBytes / players;
+                }
+                if (projectiles > 0) {
+                    bytesPerProjectile = (double) projectileBytes / projectiles;
+                }
+            } else {
+                double fullSize = keyframeOverhead + bytesPerPlayer * players + bytesPerProjectile * projectiles;
+                bytesSaved += Math.max(0, (long) fullSize - size);
+            }
+        }
+
+        BroadcastStats stats() {
+            return new BroadcastStats(keyframes, deltas, bytesSent, bytesSaved, binaryMessages, binaryBytesSent,
+                viewers.size(), viewerMessages, viewerBytesSent, superseded);
+        }
+    }
+}
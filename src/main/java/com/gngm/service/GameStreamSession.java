@@ -0,0 +1,183 @@
+package com.gngm.service;
+
+import com.gngm.engine.SnapshotWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// One raw /game-stream connection. Instead of a growing send queue it keeps at most one
+// unsent state message and one unsent radar message; socket writes happen on the
+// sender executor so a slow client never blocks the snapshot publisher.
+//
+// Newest wins: a keyframe or radar message simply replaces an unsent one. A delta
+// can't skip the one before it, so when an unsent delta is found still waiting both
+// are dropped and the stream resumes from the next keyframe. A client whose write has
+// been stuck longer than the send time limit is disconnected.
+public class GameStreamSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameStreamSession.class);
+
+    private final WebSocketSession session;
+    private final boolean binary;
+    private final Executor sender;
+    private final long sendTimeLimitNanos;
+    private final int maxMessageBytes;
+
+    private final AtomicReference<WebSocketMessage<?>> pendingState = new AtomicReference<>();
+    private final AtomicReference<WebSocketMessage<?>> pendingRadar = new AtomicReference<>();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private volatile long sendStartedNanos;
+    private volatile boolean awaitingKeyframe;
+    private volatile Runnable keyframeListener = () -> { };
+
+    private volatile long messagesSent;
+    private volatile long bytesSent;
+    private volatile long replaced;
+    private volatile long dropped;
+
+    public GameStreamSession(WebSocketSession session, boolean binary, Executor sender,
+                             int sendTimeLimitMillis, int bufferSizeLimit) {
+        // The decorator keeps close() and sends from different threads safe and enforces the same limits
+        this.session = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis, bufferSizeLimit);
+        this.binary = binary;
+        this.sender = sender;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMillis);
+        this.maxMessageBytes = bufferSizeLimit;
+    }
+
+    public String getId() {
+        return session.getId();
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public boolean isOpen() {
+        return session.isOpen();
+    }
+
+    public long getMessagesSent() {
+        return messagesSent;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    // Unsent messages overwritten by newer ones
+    public long getReplaced() {
+        return replaced;
+    }
+
+    // Deltas discarded while waiting for a keyframe
+    public long getDropped() {
+        return dropped;
+    }
+
+    // Called when the stream dropped a delta and needs the next message to be a keyframe
+    public void onKeyframeNeeded(Runnable listener) {
+        this.keyframeListener = listener;
+    }
+
+    // Called by the snapshot publisher; never blocks on the socket
+    public void offer(byte[] payload, SnapshotWriter.MessageType type) {
+        if (!session.isOpen()) {
+            return;
+        }
+        long started = sendStartedNanos;
+        if (started != 0 && System.nanoTime() - started > sendTimeLimitNanos) {
+            logger.info("Closing game stream {}: send blocked for over {} ms", getId(),
+                TimeUnit.NANOSECONDS.toMillis(sendTimeLimitNanos));
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+            return;
+        }
+        if (payload.length > maxMessageBytes) {
+            logger.warn("Closing game stream {}: {} byte message over the buffer limit", getId(), payload.length);
+            close(CloseStatus.TOO_BIG_TO_PROCESS);
+            return;
+        }
+        WebSocketMessage<?> message = binary ? new BinaryMessage(payload) : new TextMessage(payload);
+        switch (type) {
+            case RADAR -> {
+                if (pendingRadar.getAndSet(message) != null) {
+                    replaced++;
+                }
+            }
+            case KEYFRAME -> {
+                awaitingKeyframe = false;
+                if (pendingState.getAndSet(message) != null) {
+                    replaced++;
+                }
+            }
+            case DELTA -> {
+                if (awaitingKeyframe) {
+                    dropped++;
+                    return;
+                }
+                if (pendingState.getAndSet(null) != null) {
+                    // The client hasn't taken the previous message yet
+                    replaced++;
+                    dropped++;
+                    awaitingKeyframe = true;
+                    keyframeListener.run();
+                    return;
+                }
+                pendingState.set(message);
+            }
+        }
+        flush();
+    }
+
+    public void close(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            logger.debug("Error closing game stream {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    private void flush() {
+        if (sending.compareAndSet(false, true)) {
+            sender.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            WebSocketMessage<?> message;
+            while ((message = next()) != null) {
+                sendStartedNanos = System.nanoTime();
+                session.sendMessage(message);
+                sendStartedNanos = 0;
+                messagesSent++;
+                bytesSent += message.getPayloadLength();
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Game stream {} send failed: {}", getId(), e.getMessage());
+        } finally {
+            sendStartedNanos = 0;
+            sending.set(false);
+        }
+        // Something may have been offered after the last poll but before the flag was cleared
+        if (session.isOpen() && (pendingState.get() != null || pendingRadar.get() != null)) {
+            flush();
+        }
+    }
+
+    private WebSocketMessage<?> next() {
+        WebSocketMessage<?> message = pendingState.getAndSet(null);
+        return message != null ? message : pendingRadar.getAndSet(null);
+    }
+}
@@ -0,0 +1,73 @@
+package com.gngm.service;
+
+import com.gngm.engine.TimeSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+// Single node: every match runs here and leases never expire
+@Service
+@ConditionalOnProperty(name = "game.cluster.directory", havingValue = "memory", matchIfMissing = true)
+public class InMemoryMatchDirectory implements MatchDirectory {
+
+    private static final String NODE_ID = "local";
+
+    private final Set<Long> owned = ConcurrentHashMap.newKeySet();
+    private final TimeSource timeSource;
+
+    // For benchmarks and tests that build an engine without Spring
+    public InMemoryMatchDirectory() {
+        this(TimeSource.SYSTEM);
+    }
+
+    @Autowired
+    public InMemoryMatchDirectory(TimeSource timeSource) {
+        this.timeSource = timeSource;
+    }
+
+    @Override
+    public String nodeId() {
+        return NODE_ID;
+    }
+
+    @Override
+    public String owner(long matchId) {
+        return owned.contains(matchId) ? NODE_ID : null;
+    }
+
+    @Override
+    public String claim(long matchId) {
+        owned.add(matchId);
+        return NODE_ID;
+    }
+
+    @Override
+    public void release(long matchId) {
+        owned.remove(matchId);
+    }
+
+    // Never called: there is no other owner to forward to
+    @Override
+    public void forward(String nodeId, RoutedInput input) {
+        throw new IllegalStateException("No node " + nodeId + " in a single-node directory");
+    }
+
+    @Override
+    public void onForwardedInput(Consumer<RoutedInput> listener) {
+    }
+
+    @Override
+    public void onLeaseLost(LongConsumer listener) {
+    }
+
+    @Override
+    public List<NodeStatus> getNodes() {
+        return List.of(new NodeStatus(NODE_ID, timeSource.currentTimeMillis(), true, true));
+    }
+}
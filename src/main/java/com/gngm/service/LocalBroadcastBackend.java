@@ -0,0 +1,46 @@
+package com.gngm.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+
+import java.util.function.Consumer;
+
+// Single node: every client of a match is connected to the JVM that runs it
+@Service
+@ConditionalOnProperty(name = "game.broadcast.backend", havingValue = "local", matchIfMissing = true)
+public class LocalBroadcastBackend implements BroadcastBackend {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SubscriptionRegistry subscriptions;
+
+    @Autowired
+    public LocalBroadcastBackend(SimpMessagingTemplate messagingTemplate, SubscriptionRegistry subscriptions) {
+        this.messagingTemplate = messagingTemplate;
+        this.subscriptions = subscriptions;
+    }
+
+    @Override
+    public boolean hasSubscribers(String destination) {
+        return subscriptions.hasSubscribers(destination);
+    }
+
+    // An octet-stream content type makes the STOMP handler emit binary WebSocket frames
+    @Override
+    public void send(String destination, byte[] payload, MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(contentType);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+
+    // There are no other nodes
+    @Override
+    public void onRemoteSubscribe(Consumer<String> listener) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.gngm.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gngm.engine.WallGeometry;
+import com.gngm.engine.WallRect;
+import com.gngm.entity.MapEntity;
+import com.gngm.repository.MapRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Loads map layouts from the maps table, compiles them once and caches the
+// immutable geometry by map name. Lookups happen when a match is created, never
+// on the tick path; a changed layout only takes effect through reload().
+@Service
+public class MapRegistryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MapRegistryService.class);
+
+    public static final String DEFAULT_MAP_NAME = "Map1";
+    private static final double WALL_GRID_CELL_SIZE = 80.0;
+    // Map names cached with the fallback layout are client-chosen, so the cache is capped
+    private static final int MAX_CACHED_MAPS = 1024;
+
+    // Layout: 8 L-shaped corners, 4 short horizontal walls, central rectangle, and 4 L-shaped walls farther from center (open toward center)
+    public static final List<WallRect> DEFAULT_WALLS = List.of(
+        // Top left L
+        new WallRect(0, 0, 40, 200),
+        new WallRect(0, 0, 200, 40),
+        // Top right L
+        new WallRect(1560, 0, 40, 200),
+        new WallRect(1400, 0, 200, 40),
+        // Bottom left L
+        new WallRect(0, 1000, 40, 200),
+        new WallRect(0, 1160, 200, 40),
+        // Bottom right L
+        new WallRect(1560, 1000, 40, 200),
+        new WallRect(1400, 1160, 200, 40),
+        // Middle top
+        new WallRect(700, 0, 200, 40),
+        // Middle bottom
+        new WallRect(700, 1160, 200, 40),
+        // Middle left
+        new WallRect(0, 500, 40, 200),
+        // Middle right
+        new WallRect(1560, 500, 40, 200),
+        // Central rectangle (as rectangle for now)
+        new WallRect(700, 500, 200, 200),
+        // New L-shaped walls (open toward center, not attached to central rectangle)
+        // Top left L
+        new WallRect(300, 250, 30, 200), // vertical
+        new WallRect(300, 250, 200, 30), // horizontal
+        // Bottom left L
+        new WallRect(300, 720, 30, 200), // vertical
+        new WallRect(300, 890, 200, 30), // horizontal
+        // Top right L
+        new WallRect(1270, 250, 30, 200), // vertical
+        new WallRect(1100, 250, 200, 30), // horizontal
+        // Bottom right L
+        new WallRect(1270, 720, 30, 200), // vertical
+        new WallRect(1100, 890, 200, 30)  // horizontal
+    );
+
+    private final MapRepository mapRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<String, WallGeometry> cache = new ConcurrentHashMap<>();
+    // Used for maps that are missing or have no wall layout, cached under their names
+    // like any other layout so unknown names don't cost a query per join
+    private final WallGeometry fallbackGeometry = compile(DEFAULT_WALLS);
+
+    @Autowired
+    public MapRegistryService(MapRepository mapRepository, ObjectMapper objectMapper) {
+        this.mapRepository = mapRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public WallGeometry getGeometry(String mapName) {
+        String name = mapName != null ? mapName : DEFAULT_MAP_NAME;
+        WallGeometry cached = cache.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<List<WallRect>> walls = readWalls(name);
+        if (walls.isEmpty()) {
+            logger.debug("Map {} has no wall layout, using the default layout", name);
+            // Names come from clients; past the cap, unknown ones are looked up every time
+            if (cache.size() < MAX_CACHED_MAPS) {
+                cache.putIfAbsent(name, fallbackGeometry);
+            }
+            return fallbackGeometry;
+        }
+        return cache.computeIfAbsent(name, n -> compile(walls.get()));
+    }
+
+    // Drops the cached layout and compiles the current one from the database
+    public WallGeometry reload(String mapName) {
+        Optional<List<WallRect>> walls = readWalls(mapName);
+        if (walls.isEmpty()) {
+            cache.put(mapName, fallbackGeometry);
+            logger.warn("Map {} has no wall layout, using the default layout", mapName);
+            return fallbackGeometry;
+        }
+        WallGeometry geometry = compile(walls.get());
+        cache.put(mapName, geometry);
+        logger.info("Reloaded map {} ({} walls)", mapName, geometry.getWalls().size());
+        return geometry;
+    }
+
+    // Layout JSON stored in MapEntity.layoutData
+    public String toLayoutData(List<WallRect> walls) {
+        try {
+            return objectMapper.writeValueAsString(Map.of("walls", walls));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialize map layout", e);
+        }
+    }
+
+    // Also builds the layout's nav grid and flow fields here, while a match is being set
+    // up, rather than on the tick worker of the first bot that needs them
+    static WallGeometry compile(List<WallRect> walls) {
+        WallGeometry geometry = WallGeometry.compile(walls, GameEngineService.MAP_WIDTH, GameEngineService.MAP_HEIGHT,
+            WALL_GRID_CELL_SIZE, GameEngineService.PLAYER_RADIUS);
+        geometry.navGrid();
+        return geometry;
+    }
+
+    private Optional<List<WallRect>> readWalls(String mapName) {
+        Optional<MapEntity> map = mapRepository.findFirstByNameOrderByIdAsc(mapName);
+        if (map.isEmpty() || map.get().getLayoutData() == null) {
+            return Optional.empty();
+        }
+        try {
+            JsonNode wallsNode = objectMapper.readTree(map.get().getLayoutData()).get("walls");
+            if (wallsNode == null || !wallsNode.isArray()) {
+                return Optional.empty();
+            }
+            List<WallRect> walls = new ArrayList<>(wallsNode.size());
+            for (JsonNode wall : wallsNode) {
+                walls.add(objectMapper.treeToValue(wall, WallRect.class));
+            }
+            return Optional.of(walls);
+        } catch (Exception e) {
+            logger.error("Invalid layout data for map {}: {}", mapName, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
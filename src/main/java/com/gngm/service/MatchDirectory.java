@@ -0,0 +1,40 @@
+package com.gngm.service;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+// Which node runs each match. A node claims a match with a lease it keeps renewing;
+// joins and inputs for a match that runs elsewhere are forwarded to its owner
+// (game.cluster.directory=memory|redis).
+public interface MatchDirectory {
+
+    String nodeId();
+
+    // Owning node of the match, or null if no node has claimed it
+    String owner(long matchId);
+
+    // Claims the match for this node unless another node holds it; returns the owner after the attempt
+    String claim(long matchId);
+
+    // Gives up the match; may return before other nodes can see it's free, so it's safe on a tick worker
+    void release(long matchId);
+
+    // Sends an input to the node that owns its match
+    void forward(String nodeId, RoutedInput input);
+
+    // Inputs other nodes forwarded to this one
+    void onForwardedInput(Consumer<RoutedInput> listener);
+
+    // Matches this node had to give up because it couldn't renew their leases
+    void onLeaseLost(LongConsumer listener);
+
+    List<NodeStatus> getNodes();
+
+    // mapName is only used when a join has to create the match
+    record RoutedInput(long matchId, String mapName, GameEngineService.InputCommand command) {
+    }
+
+    record NodeStatus(String nodeId, long lastHeartbeatMillis, boolean alive, boolean self) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.gngm.service;
+
+import com.gngm.engine.InputJournal;
+import com.gngm.service.GameEngineService.InputCommand;
+import com.gngm.service.GameEngineService.JoinCommand;
+import com.gngm.service.GameEngineService.LeaveCommand;
+import com.gngm.service.GameEngineService.MoveCommand;
+import com.gngm.service.GameEngineService.RespawnCommand;
+import com.gngm.service.GameEngineService.ShootCommand;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+// Input journal of one match: every input in the step it was applied, and an end
+// record carrying the final state hash. Together with the header's seed, map and
+// tick rate that is enough to run the match again step for step (GameEngineService.replay).
+// Appends come from the tick worker, close may come from a lease-loss thread.
+public class MatchJournal {
+
+    static final byte END = 0;
+    static final byte JOIN = 1;
+    static final byte LEAVE = 2;
+    static final byte MOVE = 3;
+    static final byte SHOOT = 4;
+    static final byte RESPAWN = 5;
+
+    public record Header(long matchId, long seed, int tickRateHz, String mapName, long startedAtMillis) {
+    }
+
+    private final InputJournal journal;
+    private final Path file;
+    // Reused for every record; usernames are the only variable-length field
+    private final ByteBuffer scratch = ByteBuffer.allocate(1024);
+
+    private MatchJournal(InputJournal journal, Path file) {
+        this.journal = journal;
+        this.file = file;
+    }
+
+    static MatchJournal create(Path file, Header header, int regionSize) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.putLong(header.matchId()).putLong(header.seed()).putInt(header.tickRateHz());
+        putString(buffer, header.mapName());
+        buffer.putLong(header.startedAtMillis());
+        byte[] bytes = new byte[buffer.flip().remaining()];
+        buffer.get(bytes);
+        return new MatchJournal(InputJournal.create(file, bytes, regionSize), file);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    synchronized void append(long tick, InputCommand command) throws IOException {
+        scratch.clear();
+        if (command instanceof JoinCommand join) {
+            scratch.put(JOIN).putInt(join.playerId());
+            putString(scratch, join.username());
+            scratch.put((byte) (join.bot() ? 1 : 0));
+        } else if (command instanceof LeaveCommand leave) {
+            scratch.put(LEAVE).putInt(leave.playerId());
+        } else if (command instanceof MoveCommand move) {
+            scratch.put(MOVE).putInt(move.playerId()).putDouble(move.vx()).putDouble(move.vy()).putDouble(move.rotation());
+        } else if (command instanceof ShootCommand shoot) {
+            scratch.put(SHOOT).putInt(shoot.playerId()).putDouble(shoot.direction());
+        } else if (command instanceof RespawnCommand respawn) {
+            scratch.put(RESPAWN).putInt(respawn.playerId());
+        } else {
+            return;
+        }
+        journal.append(tick, scratch.flip());
+    }
+
+    // Writes the end record (the last step run, and the state after it) and closes the file
+    synchronized void finish(long tick, long stateHash) throws IOException {
+        scratch.clear();
+        scratch.put(END).putLong(stateHash);
+        journal.append(tick, scratch.flip());
+        journal.close();
+    }
+
+    // Closes without an end record, e.g. when the match moved to another node
+    synchronized void close() throws IOException {
+        journal.close();
+    }
+
+    static Header readHeader(InputJournal.Reader reader) {
+        ByteBuffer buffer = ByteBuffer.wrap(reader.header());
+        return new Header(buffer.getLong(), buffer.getLong(), buffer.getInt(), getString(buffer), buffer.getLong());
+    }
+
+    // The input in the reader's current record, or null for the end record
+    static InputCommand readCommand(ByteBuffer payload) {
+        byte type = payload.get();
+        return switch (type) {
+            case JOIN -> new JoinCommand(payload.getInt(), getString(payload), payload.get() != 0);
+            case LEAVE -> new LeaveCommand(payload.getInt());
+            case MOVE -> new MoveCommand(payload.getInt(), payload.getDouble(), payload.getDouble(), payload.getDouble());
+            case SHOOT -> new ShootCommand(payload.getInt(), payload.getDouble());
+            case RESPAWN -> new RespawnCommand(payload.getInt());
+            default -> null;
+        };
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 255);
+        buffer.put((byte) length).put(bytes, 0, length);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.get() & 0xff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
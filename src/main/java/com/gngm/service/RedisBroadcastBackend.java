@@ -0,0 +1,164 @@
+package com.gngm.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Multi-node fan-out over Redis pub/sub. The node running a match publishes each
+// encoded topic message to the channel "gngm:" + destination; a node relays a channel
+// to its local broker only while one of its sessions is subscribed to the topic, so a
+// match's clients can be spread over any number of gateway nodes. Whether a channel is
+// relayed follows the SubscriptionRegistry's count, re-checked on every change.
+//
+// A node announces new topic subscriptions on gngm:subscribe. That tells the owning
+// node to keep encoding the topic and to start it from a keyframe; once a publish
+// reaches no node at all, the owner stops encoding it again.
+@Service
+@ConditionalOnProperty(name = "game.broadcast.backend", havingValue = "redis")
+public class RedisBroadcastBackend implements BroadcastBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisBroadcastBackend.class);
+
+    static final String CHANNEL_PREFIX = "gngm:";
+    static final String SUBSCRIBE_CHANNEL = "gngm:subscribe";
+    private static final String TOPIC_PREFIX = "/topic/";
+    // A new subscriber's node may still be subscribing to the channel when the first publishes arrive
+    private static final long ANNOUNCE_GRACE_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final SubscriptionRegistry subscriptions;
+    private final LocalBroadcastBackend local;
+    private final MessageListener relay = this::relay;
+
+    // destination -> when a node last announced a subscriber to it
+    private final Map<String, Long> remoteInterest = new ConcurrentHashMap<>();
+    // Topic channels this node is subscribed to in Redis
+    private final Set<String> relayed = new HashSet<>();
+    private volatile Consumer<String> remoteSubscribeListener = destination -> { };
+
+    @Autowired
+    public RedisBroadcastBackend(@Qualifier("broadcastRedisTemplate") RedisTemplate<String, byte[]> redisTemplate,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 SimpMessagingTemplate messagingTemplate, SubscriptionRegistry subscriptions) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.subscriptions = subscriptions;
+        // Relayed messages go to our own broker exactly as in single-node mode
+        this.local = new LocalBroadcastBackend(messagingTemplate, subscriptions);
+        listenerContainer.addMessageListener(this::announced, new ChannelTopic(SUBSCRIBE_CHANNEL));
+        subscriptions.onChange(new SubscriptionRegistry.Listener() {
+            @Override
+            public void subscribed(String destination) {
+                if (destination.startsWith(TOPIC_PREFIX)) {
+                    updateRelay(destination);
+                    // After the relay is in place, so the keyframe this asks for isn't missed
+                    redisTemplate.convertAndSend(SUBSCRIBE_CHANNEL, destination.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            @Override
+            public void unsubscribed(String destination) {
+                if (destination.startsWith(TOPIC_PREFIX)) {
+                    updateRelay(destination);
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean hasSubscribers(String destination) {
+        return subscriptions.hasSubscribers(destination) || remoteInterest.containsKey(destination);
+    }
+
+    @Override
+    public void send(String destination, byte[] payload, MimeType contentType) {
+        Long receivers = redisTemplate.convertAndSend(CHANNEL_PREFIX + destination, frame(contentType, payload));
+        if (receivers == null || receivers == 0) {
+            Long announced = remoteInterest.get(destination);
+            if (announced != null && System.nanoTime() - announced > ANNOUNCE_GRACE_NANOS) {
+                remoteInterest.remove(destination, announced);
+            }
+        }
+    }
+
+    @Override
+    public void onRemoteSubscribe(Consumer<String> listener) {
+        this.remoteSubscribeListener = listener;
+    }
+
+    // Relays the topic exactly while it has local subscribers. Reads the current count under
+    // the lock rather than trusting the change that triggered it, so changes handled out of
+    // order still leave the last caller deciding on the latest count.
+    private void updateRelay(String destination) {
+        synchronized (relayed) {
+            boolean wanted = subscriptions.hasSubscribers(destination);
+            if (wanted && relayed.add(destination)) {
+                listenerContainer.addMessageListener(relay, new ChannelTopic(CHANNEL_PREFIX + destination));
+            } else if (!wanted && relayed.remove(destination)) {
+                listenerContainer.removeMessageListener(relay, new ChannelTopic(CHANNEL_PREFIX + destination));
+            }
+        }
+    }
+
+    boolean isRelayed(String destination) {
+        synchronized (relayed) {
+            return relayed.contains(destination);
+        }
+    }
+
+    private void announced(Message message, byte[] pattern) {
+        String destination = new String(message.getBody(), StandardCharsets.UTF_8);
+        remoteInterest.put(destination, System.nanoTime());
+        remoteSubscribeListener.accept(destination);
+    }
+
+    // Relay thread: hands a published message to our broker
+    private void relay(Message message, byte[] pattern) {
+        String destination = new String(message.getChannel(), StandardCharsets.UTF_8).substring(CHANNEL_PREFIX.length());
+        // Still in flight when the last subscriber left
+        if (!subscriptions.hasSubscribers(destination)) {
+            return;
+        }
+        ByteBuffer body = ByteBuffer.wrap(message.getBody());
+        byte[] type = new byte[body.get() & 0xFF];
+        body.get(type);
+        byte[] payload = new byte[body.remaining()];
+        body.get(payload);
+        try {
+            local.send(destination, payload, MimeTypeUtils.parseMimeType(new String(type, StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            logger.error("Error relaying {}: {}", destination, e.getMessage());
+        }
+    }
+
+    // u8 content type length, content type, payload
+    private static byte[] frame(MimeType contentType, byte[] payload) {
+        byte[] type = contentType.toString().getBytes(StandardCharsets.US_ASCII);
+        return ByteBuffer.allocate(1 + type.length + payload.length)
+            .put((byte) type.length)
+            .put(type)
+            .put(payload)
+            .array();
+    }
+}
@@ -0,0 +1,239 @@
+package com.gngm.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gngm.engine.TimeSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+// Redis-backed directory for several game-server nodes. A match's owner is the key
+// gngm:match-owner:{id}, set with SET NX and a lease TTL; the owner renews it every
+// heartbeat and loses the match if a renewal finds someone else (or nobody) there.
+// Nodes also record their heartbeat in the gngm:nodes hash. Heartbeats and releases run
+// on the directory's own thread, so neither a tick worker nor another scheduled job
+// ever waits on Redis for them.
+//
+// Forwarded inputs are published as JSON on the owner's gngm:inputs:{nodeId} channel
+// and arrive on the single relay thread, so one sender's inputs stay in order.
+@Service
+@ConditionalOnProperty(name = "game.cluster.directory", havingValue = "redis")
+public class RedisMatchDirectory implements MatchDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisMatchDirectory.class);
+
+    private static final String OWNER_KEY = "gngm:match-owner:";
+    private static final String NODES_KEY = "gngm:nodes";
+    private static final String INPUT_CHANNEL = "gngm:inputs:";
+    // Remote owners are looked up at most this often per match, not on every input
+    private static final long OWNER_CACHE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Takes the lease if nobody holds it; returns the owner either way, in one round trip
+    private static final RedisScript<String> CLAIM = new DefaultRedisScript<>(
+        "local owner = redis.call('get', KEYS[1]) if owner then return owner end "
+            + "redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) return ARGV[1]",
+        String.class);
+    // Extends the lease only if this node still holds it
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+        Long.class);
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final TimeSource timeSource;
+    private final String nodeId;
+    private final Set<Long> owned = ConcurrentHashMap.newKeySet();
+    private final Map<Long, CachedOwner> owners = new ConcurrentHashMap<>();
+    private volatile Consumer<RoutedInput> inputListener = input -> { };
+    private volatile LongConsumer leaseLostListener = matchId -> { };
+    // Heartbeats and lease releases
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "match-directory");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Orders a claim against a queued release of the same match's lease
+    private final Object leaseLock = new Object();
+
+    @Value("${game.cluster.lease-ms:10000}")
+    private long leaseMillis;
+
+    @Value("${game.cluster.heartbeat-ms:3000}")
+    private long heartbeatMillis;
+
+    @Autowired
+    public RedisMatchDirectory(StringRedisTemplate redis, ObjectMapper objectMapper,
+                               RedisMessageListenerContainer listenerContainer, TimeSource timeSource,
+                               @Value("${game.cluster.node-id:}") String nodeId) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.timeSource = timeSource;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString().substring(0, 8) : nodeId;
+        listenerContainer.addMessageListener(this::received, new ChannelTopic(INPUT_CHANNEL + this.nodeId));
+        logger.info("Match directory node id: {}", this.nodeId);
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public String owner(long matchId) {
+        if (owned.contains(matchId)) {
+            return nodeId;
+        }
+        CachedOwner cached = owners.get(matchId);
+        long now = timeSource.nanoTime();
+        if (cached != null && now - cached.fetchedNanos < OWNER_CACHE_NANOS) {
+            return cached.nodeId;
+        }
+        String owner = redis.opsForValue().get(OWNER_KEY + matchId);
+        owners.put(matchId, new CachedOwner(owner, now));
+        return owner;
+    }
+
+    @Override
+    public String claim(long matchId) {
+        if (owned.contains(matchId)) {
+            return nodeId;
+        }
+        synchronized (leaseLock) {
+            String owner = redis.execute(CLAIM, List.of(OWNER_KEY + matchId), nodeId, Long.toString(leaseMillis));
+            if (nodeId.equals(owner)) {
+                owned.add(matchId);
+                owners.remove(matchId);
+            } else if (owner != null) {
+                owners.put(matchId, new CachedOwner(owner, timeSource.nanoTime()));
+            }
+            return owner;
+        }
+    }
+
+    // Stops renewing at once; the key is deleted on the directory thread, unless this
+    // node claimed the match again in the meantime
+    @Override
+    public void release(long matchId) {
+        if (owned.remove(matchId)) {
+            executor.execute(() -> {
+                synchronized (leaseLock) {
+                    if (!owned.contains(matchId)) {
+                        delete(matchId);
+                    }
+                }
+            });
+        }
+    }
+
+    private void delete(long matchId) {
+        try {
+            redis.execute(RELEASE, List.of(OWNER_KEY + matchId), nodeId);
+        } catch (Exception e) {
+            // The lease runs out on its own
+            logger.warn("Could not release match {}: {}", matchId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void forward(String owner, RoutedInput input) {
+        try {
+            redis.convertAndSend(INPUT_CHANNEL + owner, objectMapper.writeValueAsString(input));
+        } catch (JsonProcessingException e) {
+            logger.error("Could not forward input for match {}: {}", input.matchId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onForwardedInput(Consumer<RoutedInput> listener) {
+        this.inputListener = listener;
+    }
+
+    @Override
+    public void onLeaseLost(LongConsumer listener) {
+        this.leaseLostListener = listener;
+    }
+
+    // Renews this node's leases well before they expire
+    void heartbeat() {
+        try {
+            for (Long matchId : owned) {
+                Long renewed = redis.execute(RENEW, List.of(OWNER_KEY + matchId), nodeId, Long.toString(leaseMillis));
+                if (renewed == null || renewed == 0) {
+                    logger.warn("Lost the lease on match {}", matchId);
+                    owned.remove(matchId);
+                    leaseLostListener.accept(matchId);
+                }
+            }
+            redis.opsForHash().put(NODES_KEY, nodeId, Long.toString(timeSource.currentTimeMillis()));
+        } catch (Exception e) {
+            // Leases outlive a few missed heartbeats
+            logger.error("Match directory heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public List<NodeStatus> getNodes() {
+        long now = timeSource.currentTimeMillis();
+        List<NodeStatus> nodes = new ArrayList<>();
+        redis.<String, String>opsForHash().entries(NODES_KEY).forEach((node, heartbeat) -> {
+            long last = Long.parseLong(heartbeat);
+            nodes.add(new NodeStatus(node, last, now - last < leaseMillis, node.equals(nodeId)));
+        });
+        return nodes;
+    }
+
+    // Hands our matches back right away instead of letting their leases run out
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        for (Long matchId : owned) {
+            delete(matchId);
+        }
+        owned.clear();
+        redis.opsForHash().delete(NODES_KEY, nodeId);
+    }
+
+    private void received(Message message, byte[] pattern) {
+        try {
+            inputListener.accept(objectMapper.readValue(message.getBody(), RoutedInput.class));
+        } catch (Exception e) {
+            logger.error("Dropping forwarded input {}: {}",
+                new String(message.getBody(), StandardCharsets.UTF_8), e.getMessage());
+        }
+    }
+
+    private record CachedOwner(String nodeId, long fetchedNanos) {
+    }
+}
@@ -0,0 +1,99 @@
+package com.gngm.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Counts STOMP subscriptions per destination, so publishers can skip encodings
+// (or whole streams) nobody is listening to. A listener hears about every change after
+// the count is updated, so it can act on the count without racing other event listeners.
+@Service
+public class SubscriptionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionRegistry.class);
+
+    // sessionId -> subscriptionId -> destination
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    // Updated only through merge/computeIfPresent, so an increment can't land on an entry
+    // a concurrent decrement just removed
+    private final Map<String, Integer> counts = new ConcurrentHashMap<>();
+    private volatile Listener listener = new Listener() { };
+
+    // Called on the thread that handled the STOMP frame or disconnect
+    public interface Listener {
+        default void subscribed(String destination) {
+        }
+
+        default void unsubscribed(String destination) {
+        }
+    }
+
+    @EventListener
+    public void handleSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        sessions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+            .put(accessor.getSubscriptionId(), destination);
+        counts.merge(destination, 1, Integer::sum);
+        logger.debug("Session {} subscribed to {}", accessor.getSessionId(), destination);
+        listener.subscribed(destination);
+    }
+
+    @EventListener
+    public void handleUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions != null && accessor.getSubscriptionId() != null) {
+            String destination = subscriptions.remove(accessor.getSubscriptionId());
+            if (destination != null) {
+                decrement(destination);
+            }
+        }
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+        }
+    }
+
+    public int subscriberCount(String destination) {
+        Integer count = counts.get(destination);
+        return count != null ? count : 0;
+    }
+
+    public boolean hasSubscribers(String destination) {
+        return subscriberCount(destination) > 0;
+    }
+
+    public boolean isSubscribed(String sessionId, String destination) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        return subscriptions != null && subscriptions.containsValue(destination);
+    }
+
+    public void onChange(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    private void decrement(String destination) {
+        counts.computeIfPresent(destination, (d, count) -> count > 1 ? count - 1 : null);
+        listener.unsubscribed(destination);
+    }
+}
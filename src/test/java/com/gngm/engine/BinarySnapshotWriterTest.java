@@ -0,0 +1,70 @@
+package com.gngm.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BinarySnapshotWriterTest {
+
+    private static final double MAP_WIDTH = 1600;
+    private static final double MAP_HEIGHT = 1200;
+
+    @Test
+    void positionsAnywhereOnTheMapComeBackWithinHalfAStep() {
+        double step = 1 / BinarySnapshotWriter.POSITION_SCALE;
+        for (double value = 0; value <= Math.max(MAP_WIDTH, MAP_HEIGHT); value += 0.37) {
+            assertEquals(value, unquantizePosition(BinarySnapshotWriter.quantizePosition(value)), step / 2);
+        }
+        assertEquals(MAP_WIDTH, unquantizePosition(BinarySnapshotWriter.quantizePosition(MAP_WIDTH)));
+        assertEquals(MAP_HEIGHT, unquantizePosition(BinarySnapshotWriter.quantizePosition(MAP_HEIGHT)));
+    }
+
+    @Test
+    void positionsOutsideTheRangeClampInsteadOfWrapping() {
+        assertEquals(0, BinarySnapshotWriter.quantizePosition(-5) & 0xffff);
+        assertEquals(0, BinarySnapshotWriter.quantizePosition(-0.01) & 0xffff);
+        double max = 65535 / BinarySnapshotWriter.POSITION_SCALE;
+        assertEquals(65535, BinarySnapshotWriter.quantizePosition(max) & 0xffff);
+        assertEquals(65535, BinarySnapshotWriter.quantizePosition(max + 1) & 0xffff);
+        assertEquals(65535, BinarySnapshotWriter.quantizePosition(1e9) & 0xffff);
+    }
+
+    @Test
+    void anglesComeBackWithinHalfAStep() {
+        double step = 2 * Math.PI / 65536;
+        for (double radians = -Math.PI; radians <= Math.PI; radians += 0.001) {
+            double decoded = BinarySnapshotWriter.quantizeAngle(radians) * step;
+            assertEquals(0, Math.IEEEremainder(radians - decoded, 2 * Math.PI), step / 2);
+        }
+    }
+
+    @Test
+    void halfTurnEitherWayIsTheSameAngle() {
+        assertEquals(BinarySnapshotWriter.quantizeAngle(Math.PI), BinarySnapshotWriter.quantizeAngle(-Math.PI));
+    }
+
+    @Test
+    void healthClampsToOneByte() {
+        MatchSnapshot snapshot = new MatchSnapshot();
+        snapshot.reset(1, false, null);
+        snapshot.addPlayer(1, "Over", 0, 0, 0, 300, true, 0);
+        snapshot.addPlayer(2, "Under", 0, 0, 0, -20, false, 0);
+        BinarySnapshotWriter writer = new BinarySnapshotWriter(64);
+        writer.begin(SnapshotWriter.MessageType.KEYFRAME, snapshot);
+        writer.beginSection(SnapshotWriter.Section.PLAYERS);
+        writer.player(snapshot, snapshot.player(0), SnapshotWriter.FIELD_HEALTH);
+        writer.player(snapshot, snapshot.player(1), SnapshotWriter.FIELD_HEALTH);
+        writer.endSection();
+        writer.end();
+
+        byte[] bytes = writer.toByteArray();
+        // Header is 7 bytes with no winner, then the u16 count; each entry is id, mask, health
+        assertEquals(2, bytes[8]);
+        assertEquals(255, bytes[9 + 5] & 0xff);
+        assertEquals(0, bytes[9 + 6 + 5] & 0xff);
+    }
+
+    private static double unquantizePosition(short value) {
+        return (value & 0xffff) / BinarySnapshotWriter.POSITION_SCALE;
+    }
+}
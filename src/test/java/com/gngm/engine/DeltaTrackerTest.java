@@ -0,0 +1,296 @@
+package com.gngm.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Plays a keyframe and then deltas into a client-side copy of the state, the way a
+// browser does, and checks the copy matches the server's snapshot after every message
+class DeltaTrackerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // Half a quantization step: 1/32 px for positions, a 65536th of a turn for angles
+    private static final double POSITION_TOLERANCE = 0.5 / BinarySnapshotWriter.POSITION_SCALE;
+    private static final double ANGLE_TOLERANCE = Math.PI / 65536;
+
+    @Test
+    void jsonKeyframeThenDeltasRebuildTheState() throws IOException {
+        DeltaTracker tracker = new DeltaTracker(100);
+        JsonSnapshotWriter writer = new JsonSnapshotWriter(MAPPER.getFactory());
+        ClientState client = new ClientState();
+        MatchSnapshot[] sequence = sequence();
+        for (int n = 0; n < sequence.length; n++) {
+            assertEquals(n == 0, tracker.write(sequence[n], writer));
+            client.applyJson(MAPPER.readTree(writer.toByteArray()));
+            client.assertMatches(sequence[n], 0, 0);
+        }
+    }
+
+    @Test
+    void binaryKeyframeThenDeltasRebuildTheState() {
+        DeltaTracker tracker = new DeltaTracker(100);
+        BinarySnapshotWriter writer = new BinarySnapshotWriter(64);
+        ClientState client = new ClientState();
+        MatchSnapshot[] sequence = sequence();
+        for (int n = 0; n < sequence.length; n++) {
+            assertEquals(n == 0, tracker.write(sequence[n], writer));
+            client.applyBinary(ByteBuffer.wrap(writer.toByteArray()));
+            client.assertMatches(sequence[n], POSITION_TOLERANCE, ANGLE_TOLERANCE);
+        }
+    }
+
+    @Test
+    void deltaCarriesOnlyChangesAndRemovals() throws IOException {
+        DeltaTracker tracker = new DeltaTracker(100);
+        JsonSnapshotWriter writer = new JsonSnapshotWriter(MAPPER.getFactory());
+        MatchSnapshot[] sequence = sequence();
+        tracker.write(sequence[0], writer);
+        tracker.write(sequence[1], writer);
+        JsonNode delta = MAPPER.readTree(writer.toByteArray());
+
+        assertEquals("delta", delta.get("type").asText());
+        // Player 1 didn't change, 2 moved, 4 joined
+        assertEquals(2, delta.get("players").size());
+        assertFalse(delta.get("players").has("1"));
+        assertFalse(delta.get("players").get("2").has("username"));
+        assertTrue(delta.get("players").get("4").has("username"));
+        assertEquals(3, delta.get("removedPlayers").get(0).asInt());
+        assertEquals(11, delta.get("removedProjectiles").get(0).asInt());
+    }
+
+    @Test
+    void keyframeEveryIntervalAndOnRequest() {
+        DeltaTracker tracker = new DeltaTracker(2);
+        BinarySnapshotWriter writer = new BinarySnapshotWriter(64);
+        MatchSnapshot snapshot = sequence()[0];
+        assertTrue(tracker.write(snapshot, writer));
+        assertFalse(tracker.write(snapshot, writer));
+        assertFalse(tracker.write(snapshot, writer));
+        assertTrue(tracker.write(snapshot, writer));
+        tracker.requestKeyframe();
+        assertTrue(tracker.write(snapshot, writer));
+    }
+
+    // Players join, move, die and leave; projectiles spawn, fly and hit
+    private static MatchSnapshot[] sequence() {
+        MatchSnapshot first = new MatchSnapshot();
+        first.reset(1, false, null);
+        first.addPlayer(2, "Bob", 400.25, 300.5, 1.5, 100, true, 0);
+        first.addPlayer(1, "Alice", 100, 200, -0.75, 100, true, 1);
+        first.addPlayer(3, "Carol", 1500, 1100, 3.0, 40, true, 2);
+        first.addProjectile(10, 120, 210, 0.25, 1);
+        first.addProjectile(11, 1490, 1090, -2.5, 3);
+
+        MatchSnapshot second = new MatchSnapshot();
+        second.reset(2, false, null);
+        second.addPlayer(1, "Alice", 100, 200, -0.75, 100, true, 1);
+        second.addPlayer(2, "Bob", 404.5, 297.125, 1.5, 100, true, 0);
+        second.addPlayer(4, "Dave", 800, 600, 0, 100, true, 0);
+        second.addProjectile(10, 135.5, 214, 0.25, 1);
+        second.addProjectile(12, 410, 300, 2.75, 2);
+
+        MatchSnapshot third = new MatchSnapshot();
+        third.reset(3, true, "Bob");
+        third.addPlayer(1, "Alice", 100, 200, -0.75, 0, false, 1);
+        third.addPlayer(2, "Bob", 404.5, 297.125, -3.1, 100, true, 2);
+        third.addPlayer(4, "Dave", 800, 600, 0, 100, true, 0);
+        return new MatchSnapshot[] {first, second, third};
+    }
+
+    // What a client keeps between messages: entities by id, updated field by field
+    private static final class ClientState {
+        final Map<Integer, Player> players = new TreeMap<>();
+        final Map<Integer, Projectile> projectiles = new TreeMap<>();
+        long tick;
+        boolean gameOver;
+        String winnerName;
+
+        void applyJson(JsonNode message) {
+            tick = message.get("tick").asLong();
+            gameOver = message.get("gameOver").asBoolean();
+            winnerName = message.get("winnerName").isNull() ? null : message.get("winnerName").asText();
+            if (!"delta".equals(message.get("type").asText())) {
+                players.clear();
+                projectiles.clear();
+            }
+            for (Iterator<Map.Entry<String, JsonNode>> it = message.path("players").fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> entry = it.next();
+                JsonNode node = entry.getValue();
+                Player player = players.computeIfAbsent(Integer.parseInt(entry.getKey()), id -> new Player());
+                if (node.has("username")) {
+                    player.username = node.get("username").asText();
+                }
+                if (node.has("x")) {
+                    player.x = node.get("x").asDouble();
+                }
+                if (node.has("y")) {
+                    player.y = node.get("y").asDouble();
+                }
+                if (node.has("rotation")) {
+                    player.rotation = node.get("rotation").asDouble();
+                }
+                if (node.has("health")) {
+                    player.health = node.get("health").asInt();
+                }
+                if (node.has("alive")) {
+                    player.alive = node.get("alive").asBoolean();
+                }
+                if (node.has("currentWeaponIndex")) {
+                    player.weapon = node.get("currentWeaponIndex").asInt();
+                }
+            }
+            message.path("removedPlayers").forEach(id -> players.remove(id.asInt()));
+            for (Iterator<Map.Entry<String, JsonNode>> it = message.path("projectiles").fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> entry = it.next();
+                JsonNode node = entry.getValue();
+                Projectile projectile = projectiles.computeIfAbsent(Integer.parseInt(entry.getKey()), id -> new Projectile());
+                if (node.has("playerId")) {
+                    projectile.owner = node.get("playerId").asInt();
+                    projectile.direction = node.get("direction").asDouble();
+                }
+                projectile.x = node.get("x").asDouble();
+                projectile.y = node.get("y").asDouble();
+            }
+            message.path("removedProjectiles").forEach(id -> projectiles.remove(id.asInt()));
+        }
+
+        void applyBinary(ByteBuffer message) {
+            assertEquals(BinarySnapshotWriter.VERSION, message.get());
+            int flags = message.get();
+            tick = message.getInt() & 0xffffffffL;
+            winnerName = getString(message);
+            gameOver = (flags & 2) != 0;
+            boolean keyframe = (flags & 5) != 0;
+            if (keyframe) {
+                players.clear();
+                projectiles.clear();
+            }
+            for (int n = message.getShort() & 0xffff; n > 0; n--) {
+                Player player = players.computeIfAbsent(message.getInt(), id -> new Player());
+                int fields = message.get();
+                if ((fields & SnapshotWriter.FIELD_USERNAME) != 0) {
+                    player.username = getString(message);
+                }
+                if ((fields & SnapshotWriter.FIELD_X) != 0) {
+                    player.x = position(message.getShort());
+                }
+                if ((fields & SnapshotWriter.FIELD_Y) != 0) {
+                    player.y = position(message.getShort());
+                }
+                if ((fields & SnapshotWriter.FIELD_ROTATION) != 0) {
+                    player.rotation = angle(message.getShort());
+                }
+                if ((fields & SnapshotWriter.FIELD_HEALTH) != 0) {
+                    player.health = message.get() & 0xff;
+                }
+                if ((fields & SnapshotWriter.FIELD_ALIVE) != 0) {
+                    player.alive = message.get() != 0;
+                }
+                if ((fields & SnapshotWriter.FIELD_WEAPON) != 0) {
+                    player.weapon = message.get();
+                }
+            }
+            if (!keyframe) {
+                for (int n = message.getShort() & 0xffff; n > 0; n--) {
+                    players.remove(message.getInt());
+                }
+            }
+            for (int n = message.getShort() & 0xffff; n > 0; n--) {
+                Projectile projectile = projectiles.computeIfAbsent(message.getInt(), id -> new Projectile());
+                if (message.get() != 0) {
+                    projectile.owner = message.getInt();
+                    projectile.direction = angle(message.getShort());
+                }
+                projectile.x = position(message.getShort());
+                projectile.y = position(message.getShort());
+            }
+            if (!keyframe) {
+                for (int n = message.getShort() & 0xffff; n > 0; n--) {
+                    projectiles.remove(message.getInt());
+                }
+            }
+            assertFalse(message.hasRemaining());
+        }
+
+        void assertMatches(MatchSnapshot expected, double positionTolerance, double angleTolerance) {
+            assertEquals(expected.getTick(), tick);
+            assertEquals(expected.isGameOver(), gameOver);
+            assertEquals(expected.getWinnerName(), winnerName);
+            assertEquals(expected.playerCount(), players.size());
+            for (int n = 0; n < expected.playerCount(); n++) {
+                int i = expected.player(n);
+                Player player = players.get(expected.playerId(i));
+                String at = "player " + expected.playerId(i) + " at tick " + tick;
+                assertEquals(expected.username(i), player.username, at);
+                assertEquals(expected.playerX(i), player.x, positionTolerance, at);
+                assertEquals(expected.playerY(i), player.y, positionTolerance, at);
+                assertAngle(expected.rotation(i), player.rotation, angleTolerance, at);
+                assertEquals(expected.health(i), player.health, at);
+                assertEquals(expected.alive(i), player.alive, at);
+                assertEquals(expected.weaponIndex(i), player.weapon, at);
+            }
+            assertEquals(expected.projectileCount(), projectiles.size());
+            for (int n = 0; n < expected.projectileCount(); n++) {
+                int i = expected.projectile(n);
+                Projectile projectile = projectiles.get(expected.projectileId(i));
+                String at = "projectile " + expected.projectileId(i) + " at tick " + tick;
+                assertEquals(expected.owner(i), projectile.owner, at);
+                assertAngle(expected.direction(i), projectile.direction, angleTolerance, at);
+                assertEquals(expected.projectileX(i), projectile.x, positionTolerance, at);
+                assertEquals(expected.projectileY(i), projectile.y, positionTolerance, at);
+            }
+        }
+
+        private static double position(short value) {
+            return (value & 0xffff) / BinarySnapshotWriter.POSITION_SCALE;
+        }
+
+        private static double angle(short value) {
+            return value * (2 * Math.PI / 65536);
+        }
+
+        // Angles near +-pi may come back on the other side of the wrap
+        private static void assertAngle(double expected, double actual, double tolerance, String message) {
+            double difference = Math.IEEEremainder(expected - actual, 2 * Math.PI);
+            assertEquals(0, difference, tolerance, message);
+        }
+
+        private static String getString(ByteBuffer buffer) {
+            int length = buffer.get() & 0xff;
+            if (length == 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Player {
+        String username;
+        double x;
+        double y;
+        double rotation;
+        int health;
+        boolean alive;
+        int weapon;
+    }
+
+    private static final class Projectile {
+        int owner;
+        double direction;
+        double x;
+        double y;
+    }
+}
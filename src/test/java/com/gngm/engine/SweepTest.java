@@ -0,0 +1,70 @@
+package com.gngm.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SweepTest {
+
+    // A 2 px wall: far thinner than one step of a fast projectile
+    private static final WallGeometry THIN_WALL =
+        WallGeometry.compile(List.of(new WallRect(500, 0, 2, 1200)), 1600, 1200, 80, 25);
+
+    @Test
+    void fastProjectileStopsAtAThinWall() {
+        ProjectilePool pool = new ProjectilePool(4);
+        // 6000 px/s at 60 Hz is 100 px per step, fifty times the wall's thickness
+        pool.spawn(430, 600, 0, 6000, 1, 0);
+        for (int step = 0; step < 5 && !pool.stopped(0); step++) {
+            pool.move(0, 1 / 60.0);
+            // Both ends of each step are clear of the wall; only the sweep sees it
+            double t = THIN_WALL.sweep(pool.prevX(0), pool.prevY(0), pool.x(0), pool.y(0));
+            if (t <= 1) {
+                pool.stop(0, t);
+            }
+        }
+        assertTrue(pool.stopped(0));
+        assertEquals(500, pool.x(0), 1e-9);
+        assertEquals(600, pool.y(0), 1e-9);
+    }
+
+    @Test
+    void stepWithBothEndsClearStillHitsTheWall() {
+        assertFalse(THIN_WALL.containsPoint(450, 600));
+        assertFalse(THIN_WALL.containsPoint(550, 600));
+        assertEquals(0.5, THIN_WALL.sweep(450, 600, 550, 600), 1e-9);
+        // Backwards and diagonally, across several grid cells
+        assertEquals(0.5, THIN_WALL.sweep(552, 700, 452, 500), 1e-9);
+    }
+
+    @Test
+    void stepAlongsideTheWallMisses() {
+        assertEquals(Sweep.NONE, THIN_WALL.sweep(400, 600, 499.9, 700));
+        assertEquals(Sweep.NONE, THIN_WALL.sweep(502.1, 0, 502.1, 1200));
+    }
+
+    @Test
+    void boxHitIsTheEntryPoint() {
+        assertEquals(0.25, Sweep.box(0, 0, 400, 0, 100, -1, 102, 1), 1e-12);
+        assertEquals(0.25, Sweep.box(400, 0, 0, 0, 298, -1, 300, 1), 1e-12);
+        // Touching an edge counts
+        assertEquals(1, Sweep.box(0, 0, 100, 0, 100, -1, 102, 1), 1e-12);
+        assertEquals(0, Sweep.box(101, 0, 200, 0, 100, -1, 102, 1));
+        assertEquals(Sweep.NONE, Sweep.box(0, 2, 400, 2, 100, -1, 102, 1));
+    }
+
+    @Test
+    void circleHitIsWhereTheSegmentComesWithinRadius() {
+        // A 1000 px step past a 25 px target still hits it, at x = 475
+        assertEquals(0.475, Sweep.circle(0, 0, 1000, 0, 500, 0, 25), 1e-12);
+        assertEquals(0, Sweep.circle(490, 0, 1000, 0, 500, 0, 25));
+        // Exactly radius away doesn't count
+        assertEquals(Sweep.NONE, Sweep.circle(0, 25, 1000, 25, 500, 0, 25));
+        // Moving away
+        assertEquals(Sweep.NONE, Sweep.circle(600, 0, 1000, 0, 500, 0, 25));
+    }
+}
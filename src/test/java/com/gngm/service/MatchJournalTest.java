@@ -0,0 +1,133 @@
+package com.gngm.service;
+
+import com.gngm.engine.InputJournal;
+import com.gngm.engine.SimulationClock;
+import com.gngm.engine.TimeSource;
+import com.gngm.engine.WallGeometry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchJournalTest {
+
+    // Small regions so a short match already rolls over a few of them
+    private static final int REGION_SIZE = 4096;
+
+    @TempDir
+    Path dir;
+
+    private GameEngineService engine;
+    private WallGeometry walls;
+
+    @BeforeEach
+    void setUp() {
+        engine = new GameEngineService(null, null, TimeSource.SYSTEM, null, new InMemoryMatchDirectory());
+        engine.buildPipeline();
+        walls = MapRegistryService.compile(MapRegistryService.DEFAULT_WALLS);
+    }
+
+    @Test
+    void commandsReadBackAsWritten() throws IOException {
+        Path file = dir.resolve("commands.journal");
+        MatchJournal.Header header = new MatchJournal.Header(7, 42, 60, "arena", 1234567890L);
+        List<GameEngineService.InputCommand> written = List.of(
+            new GameEngineService.JoinCommand(1, "Alice", false),
+            new GameEngineService.JoinCommand(2, "Bot", true),
+            new GameEngineService.MoveCommand(1, 2, -2, 0.5),
+            new GameEngineService.ShootCommand(2, -1.25),
+            new GameEngineService.RespawnCommand(1),
+            new GameEngineService.LeaveCommand(2));
+        MatchJournal journal = MatchJournal.create(file, header, REGION_SIZE);
+        for (int i = 0; i < written.size(); i++) {
+            journal.append(i, written.get(i));
+        }
+        journal.finish(written.size(), 99);
+
+        InputJournal.Reader reader = InputJournal.open(file);
+        assertEquals(header, MatchJournal.readHeader(reader));
+        List<GameEngineService.InputCommand> read = new ArrayList<>();
+        long lastTick = -1;
+        while (reader.next()) {
+            GameEngineService.InputCommand command = MatchJournal.readCommand(reader.payload());
+            lastTick = reader.tick();
+            if (command == null) {
+                break;
+            }
+            read.add(command);
+        }
+        assertEquals(written, read);
+        assertEquals(written.size(), lastTick);
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void replayEndsInTheRecordedState() throws IOException {
+        Path file = dir.resolve("match.journal");
+        long recordedHash = record(file, 8, 1200);
+
+        InputJournal.Reader reader = InputJournal.open(file);
+        GameEngineService.ReplayResult result = engine.replay(reader, MatchJournal.readHeader(reader), walls);
+        assertEquals(1200, result.ticks());
+        assertEquals(recordedHash, result.recordedStateHash());
+        assertEquals(recordedHash, result.stateHash());
+        assertTrue(result.matchesRecording());
+    }
+
+    @Test
+    void journalWithoutEndRecordCannotBeChecked() throws IOException {
+        Path file = dir.resolve("cut.journal");
+        GameEngineService.MatchState match = newMatch(file);
+        match.inputs.add(new GameEngineService.JoinCommand(1, "Alice", false));
+        for (int tick = 0; tick < 10; tick++) {
+            engine.step(match);
+        }
+        match.journal.close();
+
+        InputJournal.Reader reader = InputJournal.open(file);
+        GameEngineService.ReplayResult result = engine.replay(reader, MatchJournal.readHeader(reader), walls);
+        assertNull(result.recordedStateHash());
+        assertNull(result.matchesRecording());
+    }
+
+    // Players wandering and shooting at random; returns the final state hash
+    private long record(Path file, int players, int ticks) throws IOException {
+        GameEngineService.MatchState match = newMatch(file);
+        Random random = new Random(7);
+        for (int id = 0; id < players; id++) {
+            match.inputs.add(new GameEngineService.JoinCommand(id, "Player" + id, false));
+        }
+        for (int tick = 0; tick < ticks; tick++) {
+            int id = random.nextInt(players);
+            if (tick % 10 == 0) {
+                match.inputs.add(new GameEngineService.MoveCommand(id, random.nextInt(3) * 2 - 2,
+                    random.nextInt(3) * 2 - 2, random.nextDouble() * 2 * Math.PI - Math.PI));
+            }
+            if (tick % 15 == 0) {
+                match.inputs.add(new GameEngineService.ShootCommand(id, random.nextDouble() * 2 * Math.PI - Math.PI));
+            }
+            engine.step(match);
+        }
+        long hash = GameEngineService.stateHash(match);
+        match.journal.finish(match.clock.getTick(), hash);
+        return hash;
+    }
+
+    private GameEngineService.MatchState newMatch(Path file) throws IOException {
+        GameEngineService.MatchState match = new GameEngineService.MatchState(1, MapRegistryService.DEFAULT_MAP_NAME,
+            new SimulationClock(60, 5), walls, 42);
+        match.journal = MatchJournal.create(file, new MatchJournal.Header(match.id, match.seed, 60, match.mapName,
+            0), REGION_SIZE);
+        return match;
+    }
+}
@@ -0,0 +1,182 @@
+package com.gngm.service;
+
+import com.gngm.config.RedisConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two nodes, each with its own connection, listener container and local broker, over a real Redis server
+class RedisBroadcastBackendTest {
+
+    private static final String TOPIC = "/topic/game/1";
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private static RedisServer server;
+    private static int port;
+
+    private Node a;
+    private Node b;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new RedisServer(port);
+        server.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        server.stop();
+    }
+
+    @BeforeEach
+    void startNodes() {
+        a = new Node();
+        b = new Node();
+    }
+
+    @AfterEach
+    void stopNodes() {
+        a.close();
+        b.close();
+    }
+
+    @Test
+    void publishOnOneNodeReachesSubscriberOnAnother() throws InterruptedException {
+        b.subscribe("s1", "sub-1");
+        // B's announcement tells A someone is listening
+        await(() -> a.backend.hasSubscribers(TOPIC));
+
+        byte[] payload = "{\"tick\":1}".getBytes(StandardCharsets.UTF_8);
+        Message<?> received = a.publishUntilReceived(b, payload);
+        assertArrayEquals(payload, (byte[]) received.getPayload());
+        assertEquals(TOPIC, SimpMessageHeaderAccessor.getDestination(received.getHeaders()));
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, received.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    void resubscribingKeepsTheRelay() throws InterruptedException {
+        b.subscribe("s1", "sub-1");
+        b.unsubscribe("s1", "sub-1");
+        b.subscribe("s1", "sub-2");
+        assertTrue(b.backend.isRelayed(TOPIC));
+
+        byte[] payload = {1, 2, 3};
+        assertNotNull(a.publishUntilReceived(b, payload));
+    }
+
+    @Test
+    void lastUnsubscribeStopsTheRelay() {
+        b.subscribe("s1", "sub-1");
+        b.subscribe("s2", "sub-1");
+        b.unsubscribe("s1", "sub-1");
+        assertTrue(b.backend.isRelayed(TOPIC));
+        b.unsubscribe("s2", "sub-1");
+        assertFalse(b.backend.isRelayed(TOPIC));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static final class Node {
+        final LettuceConnectionFactory connectionFactory;
+        final ExecutorService relayExecutor;
+        final RedisMessageListenerContainer container;
+        final SubscriptionRegistry subscriptions = new SubscriptionRegistry();
+        final BlockingQueue<Message<?>> delivered = new LinkedBlockingQueue<>();
+        final RedisBroadcastBackend backend;
+
+        Node() {
+            RedisConfig config = new RedisConfig();
+            connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            RedisTemplate<String, byte[]> template = config.broadcastRedisTemplate(connectionFactory);
+            template.afterPropertiesSet();
+            relayExecutor = config.redisRelayExecutor();
+            container = config.broadcastListenerContainer(connectionFactory, relayExecutor);
+            container.afterPropertiesSet();
+            container.start();
+            // The local broker: whatever the relay hands it lands here
+            SimpMessagingTemplate broker = new SimpMessagingTemplate((message, timeout) -> delivered.add(message));
+            backend = new RedisBroadcastBackend(template, container, broker, subscriptions);
+        }
+
+        void subscribe(String sessionId, String subscriptionId) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId(subscriptionId);
+            accessor.setDestination(TOPIC);
+            subscriptions.handleSubscribe(new SessionSubscribeEvent(this,
+                MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders())));
+        }
+
+        void unsubscribe(String sessionId, String subscriptionId) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId(subscriptionId);
+            subscriptions.handleUnsubscribe(new SessionUnsubscribeEvent(this,
+                MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders())));
+        }
+
+        // The receiver's channel subscription completes asynchronously, so early publishes may reach nobody
+        Message<?> publishUntilReceived(Node receiver, byte[] payload) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (System.currentTimeMillis() < deadline) {
+                backend.send(TOPIC, payload, MimeTypeUtils.APPLICATION_JSON);
+                Message<?> message = receiver.delivered.poll(100, TimeUnit.MILLISECONDS);
+                if (message != null) {
+                    return message;
+                }
+            }
+            throw new AssertionError("Nothing relayed to the other node");
+        }
+
+        void close() {
+            container.stop();
+            relayExecutor.shutdownNow();
+            connectionFactory.destroy();
+        }
+    }
+}